@@ -0,0 +1,200 @@
+package xyz.baz9k.UHCGame.bench;
+
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Microbenchmark of the color and arrow part of formatting a teammate line (see HUDManager#formatTeammate),
+ * comparing the formatter before the lookup tables with the current one.
+ * <p>
+ * This is not part of the plugin and has no dependencies, so it can be run straight from source:
+ * <pre>java src/bench/java/xyz/baz9k/UHCGame/bench/TeammateFormatBench.java</pre>
+ * Both paths are copied here, since HUDManager can't be loaded without a server.
+ * The copies must be kept in sync with HUDManager (healthBucket, arrowIndex and their tables) and ColorGradient.
+ * Building the Adventure components is not included.
+ */
+public final class TeammateFormatBench {
+    private TeammateFormatBench() {}
+
+    private static final int INPUTS = 1 << 20;
+    private static final int WARMUP_ROUNDS = 10,
+                             ROUNDS = 10;
+
+    /* OLD: gradient computed per call, atan2 and an if-chain */
+
+    private static final Color FULL_HP = new Color(87, 232, 107),
+                               HALF_HP = new Color(254, 254, 105),
+                               NO_HP = new Color(232, 85, 85),
+                               OVER_HEAL = new Color(171, 85, 232);
+
+    private static double clamp(double min, double x, double max) {
+        return Math.max(min, Math.min(x, max));
+    }
+
+    private static double mod(double x, double y) {
+        return ((x % y) + y) % y;
+    }
+
+    private static Color twoColorGradient(double distance, Color a, Color b) {
+        distance = clamp(0, distance, 1);
+
+        float[] aComp = a.getRGBColorComponents(null);
+        float[] bComp = b.getRGBColorComponents(null);
+        float newRed   = aComp[0] + (float) distance * (bComp[0] - aComp[0]);
+        float newGreen = aComp[1] + (float) distance * (bComp[1] - aComp[1]);
+        float newBlue  = aComp[2] + (float) distance * (bComp[2] - aComp[2]);
+        return new Color(newRed, newGreen, newBlue);
+    }
+
+    private static Color multiColorGradient(double distance, Color... color) {
+        distance = clamp(0, distance, 1);
+        int nIntervals = color.length - 1;
+
+        float scaledDistance = (float) distance * nIntervals;
+        int scaledDistanceFloor = (int) scaledDistance;
+        if (scaledDistanceFloor >= nIntervals) return color[nIntervals];
+
+        float interDist = scaledDistance - scaledDistanceFloor;
+        return twoColorGradient(interDist, color[scaledDistanceFloor], color[scaledDistanceFloor + 1]);
+    }
+
+    private static int oldColor(double hp, double maxHP) {
+        Color gradient = hp > maxHP ? OVER_HEAL : multiColorGradient(hp / maxHP, NO_HP, HALF_HP, FULL_HP);
+        return gradient.getRGB();
+    }
+
+    private static int oldArrow(double dx, double dz, float yaw) {
+        double angle = Math.toDegrees(Math.atan2(dz, dx));
+        double relAngle = mod(yaw - angle + 90, 360) - 180;
+
+        if (112.5 < relAngle && relAngle < 157.5) return 3;
+        else if (67.5 < relAngle && relAngle < 112.5) return 2;
+        else if (22.5 < relAngle && relAngle < 67.5) return 1;
+        else if (-22.5 < relAngle && relAngle < 22.5) return 0;
+        else if (-67.5 < relAngle && relAngle < -22.5) return 7;
+        else if (-112.5 < relAngle && relAngle < -67.5) return 6;
+        else if (-157.5 < relAngle && relAngle < -112.5) return 5;
+        else return 4;
+    }
+
+    /* NEW: color table, yaw sin/cos tables and bin comparisons */
+
+    private static final int HEALTH_BUCKETS = 256;
+    private static final int[] HEALTH_COLORS = new int[HEALTH_BUCKETS + 1];
+    private static final int OVER_HEAL_RGB = OVER_HEAL.getRGB();
+    static {
+        for (int i = 0; i <= HEALTH_BUCKETS; i++) {
+            HEALTH_COLORS[i] = multiColorGradient((double) i / HEALTH_BUCKETS, NO_HP, HALF_HP, FULL_HP).getRGB();
+        }
+    }
+
+    private static final int YAW_STEPS = 3600;
+    private static final double[] YAW_SIN = new double[YAW_STEPS],
+                                  YAW_COS = new double[YAW_STEPS];
+    static {
+        for (int i = 0; i < YAW_STEPS; i++) {
+            double rad = Math.toRadians(i * 360.0 / YAW_STEPS);
+            YAW_SIN[i] = Math.sin(rad);
+            YAW_COS[i] = Math.cos(rad);
+        }
+    }
+    private static final double TAN_22_5 = Math.sqrt(2) - 1;
+    private static final int[][] DIAGONAL_BINS = { { 5, 3 }, { 7, 1 } };
+
+    private static int newColor(double hp, double maxHP) {
+        if (hp > maxHP) return OVER_HEAL_RGB;
+        return HEALTH_COLORS[(int) Math.round(clamp(0, hp / maxHP, 1) * HEALTH_BUCKETS)];
+    }
+
+    private static int newArrow(double dx, double dz, float yaw) {
+        int yawStep = (int) Math.round(mod(yaw, 360) * YAW_STEPS / 360) % YAW_STEPS;
+        double cos = -YAW_SIN[yawStep],
+               sin =  YAW_COS[yawStep];
+        double x = cos * dx + sin * dz,
+               y = sin * dx - cos * dz;
+        double ax = Math.abs(x),
+               ay = Math.abs(y);
+
+        int bin;
+        if (ay <= TAN_22_5 * ax) bin = x > 0 ? 0 : 4;
+        else if (ax <= TAN_22_5 * ay) bin = y > 0 ? 2 : 6;
+        else bin = DIAGONAL_BINS[x > 0 ? 1 : 0][y > 0 ? 1 : 0];
+
+        return (bin + 4) % 8;
+    }
+
+    /* HARNESS */
+
+    private static final double[] hp = new double[INPUTS],
+                                  maxHP = new double[INPUTS],
+                                  dx = new double[INPUTS],
+                                  dz = new double[INPUTS];
+    private static final float[] yaw = new float[INPUTS];
+
+    private static long oldRound() {
+        long sink = 0;
+        for (int i = 0; i < INPUTS; i++) {
+            sink += oldColor(hp[i], maxHP[i]) ^ oldArrow(dx[i], dz[i], yaw[i]);
+        }
+        return sink;
+    }
+
+    private static long newRound() {
+        long sink = 0;
+        for (int i = 0; i < INPUTS; i++) {
+            sink += newColor(hp[i], maxHP[i]) ^ newArrow(dx[i], dz[i], yaw[i]);
+        }
+        return sink;
+    }
+
+    /**
+     * @return the best time of the rounds, in ns per input
+     */
+    private static double time(boolean old, long[] sink) {
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            sink[0] += old ? oldRound() : newRound();
+            best = Math.min(best, (double) (System.nanoTime() - t0) / INPUTS);
+        }
+        return best;
+    }
+
+    public static void main(String[] args) {
+        Random r = new Random(args.length > 0 ? Long.parseLong(args[0]) : 0);
+        for (int i = 0; i < INPUTS; i++) {
+            maxHP[i] = new double[] { 10, 20, 40, 60 }[r.nextInt(4)];
+            hp[i] = r.nextDouble() * maxHP[i] * 1.1;
+            dx[i] = (r.nextDouble() - 0.5) * 2000;
+            dz[i] = (r.nextDouble() - 0.5) * 2000;
+            yaw[i] = (float) (r.nextDouble() * 360 - 180);
+        }
+
+        int colorDiffs = 0, maxChannelDiff = 0, arrowDiffs = 0;
+        for (int i = 0; i < INPUTS; i++) {
+            int oc = oldColor(hp[i], maxHP[i]),
+                nc = newColor(hp[i], maxHP[i]);
+            if (oc != nc) {
+                colorDiffs++;
+                for (int shift = 0; shift < 24; shift += 8) {
+                    maxChannelDiff = Math.max(maxChannelDiff, Math.abs((oc >> shift & 0xFF) - (nc >> shift & 0xFF)));
+                }
+            }
+            if (oldArrow(dx[i], dz[i], yaw[i]) != newArrow(dx[i], dz[i], yaw[i])) arrowDiffs++;
+        }
+
+        long[] sink = { 0 };
+        for (int w = 0; w < WARMUP_ROUNDS; w++) {
+            sink[0] += oldRound() + newRound();
+        }
+        double oldNs = time(true, sink),
+               newNs = time(false, sink);
+
+        System.out.printf("inputs: %d%n", INPUTS);
+        System.out.printf("old: %.1f ns/op%n", oldNs);
+        System.out.printf("new: %.1f ns/op%n", newNs);
+        System.out.printf("colors differing from the exact gradient: %d, by at most %d per channel (health is rounded to 1/%d of max)%n", colorDiffs, maxChannelDiff, HEALTH_BUCKETS);
+        System.out.printf("arrows differing from atan2: %d (yaw is rounded to 0.1 degrees)%n", arrowDiffs);
+        System.out.printf("(sink %d)%n", sink[0]);
+    }
+}
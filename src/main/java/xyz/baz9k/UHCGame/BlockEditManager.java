@@ -0,0 +1,224 @@
+package xyz.baz9k.UHCGame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import xyz.baz9k.UHCGame.util.Debug;
+
+/**
+ * Applies large sets of block changes over multiple ticks.
+ * <p>
+ * Edits are grouped by chunk and set without physics updates.
+ * Each chunk is loaded (or generated) asynchronously before it is queued, so applying edits never loads chunks on the main thread.
+ * Each tick, chunks are applied until the time budget set in config (perf.block_edit_budget_ms) is used up.
+ */
+public class BlockEditManager {
+    private final UHCGamePlugin plugin;
+    private final Deque<ChunkEdits> queue = new ArrayDeque<>();
+    private BukkitTask drainTask;
+    /**
+     * Number of chunks which are loading and will be queued once loaded
+     */
+    private int loading = 0;
+
+    public BlockEditManager(UHCGamePlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * The edits to a single (loaded) chunk. The chunk holds a plugin ticket until the edits are applied.
+     * Positions are packed as (y << 8 | localZ << 4 | localX), with y relative to the world's min height.
+     */
+    private record ChunkEdits(Chunk chunk, int[] positions, Material[] materials, Batch batch) { }
+
+    /**
+     * A set of block edits in one world. Edits are applied in the order they were added.
+     */
+    public class Batch {
+        private final World world;
+        private final int minY;
+        private final Map<Long, List<Edit>> edits = new LinkedHashMap<>();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        /**
+         * Chunks which have not been edited or failed yet
+         */
+        private int remainingChunks;
+        /**
+         * The first error in this batch (later ones are suppressed into it), or null
+         */
+        private Throwable failure;
+        private boolean submitted = false;
+
+        private record Edit(int position, Material material) { }
+
+        private Batch(World world) {
+            this.world = world;
+            this.minY = world.getMinHeight();
+        }
+
+        /**
+         * Adds a block change to this batch
+         * @param x X coordinate of block
+         * @param y Y coordinate of block
+         * @param z Z coordinate of block
+         * @param mat Material to set the block to
+         * @return this batch
+         */
+        public Batch set(int x, int y, int z, Material mat) {
+            if (submitted) throw new IllegalStateException("Batch was already submitted");
+            long chunkKey = Chunk.getChunkKey(x >> 4, z >> 4);
+            int pos = (y - minY) << 8 | (z & 15) << 4 | (x & 15);
+
+            edits.computeIfAbsent(chunkKey, k -> new ArrayList<>()).add(new Edit(pos, mat));
+            return this;
+        }
+
+        /**
+         * Adds a change to every block in a cuboid to this batch (bounds are inclusive)
+         * @return this batch
+         */
+        public Batch fill(int x1, int y1, int z1, int x2, int y2, int z2, Material mat) {
+            for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+                for (int z = Math.min(z1, z2); z <= Math.max(z1, z2); z++) {
+                    for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                        set(x, y, z, mat);
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Queues this batch to be applied.
+         * @return a future which completes (on the main thread) once every edit in this batch is applied
+         */
+        public CompletableFuture<Void> submit() {
+            if (submitted) return future;
+            submitted = true;
+
+            remainingChunks = edits.size();
+            if (remainingChunks == 0) {
+                future.complete(null);
+                return future;
+            }
+
+            for (var e : edits.entrySet()) {
+                long key = e.getKey();
+                List<Edit> chunkEdits = e.getValue();
+
+                int[] positions = new int[chunkEdits.size()];
+                Material[] materials = new Material[chunkEdits.size()];
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = chunkEdits.get(i).position();
+                    materials[i] = chunkEdits.get(i).material();
+                }
+
+                loading++;
+                world.getChunkAtAsync((int) key, (int) (key >> 32), true).whenComplete((c, err) -> {
+                    loading--;
+                    if (err != null) {
+                        settle(err);
+                        return;
+                    }
+
+                    // keep the chunk loaded until it's edited
+                    c.addPluginChunkTicket(plugin);
+                    queue.add(new ChunkEdits(c, positions, materials, this));
+                    startDraining();
+                });
+            }
+            edits.clear();
+
+            return future;
+        }
+
+        /**
+         * Marks one chunk of this batch as edited (or failed).
+         * The future only completes once every chunk has settled, so a failed batch is not still editing when it's retried.
+         * @param err The chunk's error, or null if it was edited
+         */
+        private void settle(Throwable err) {
+            if (err != null) {
+                Debug.printError(err);
+                if (failure == null) failure = err;
+                else failure.addSuppressed(err);
+            }
+
+            if (--remainingChunks > 0) return;
+            if (failure == null) future.complete(null);
+            else future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Starts a new batch of edits in a world. The batch does nothing until {@link Batch#submit} is called.
+     * @param w World to edit
+     * @return the new batch
+     */
+    public Batch batch(World w) {
+        return new Batch(w);
+    }
+
+    /**
+     * @return true if there are edits waiting to be applied
+     */
+    public boolean isBusy() {
+        return loading > 0 || !queue.isEmpty();
+    }
+
+    private void startDraining() {
+        if (drainTask != null) return;
+        drainTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drain, 0L, 1L);
+    }
+
+    private void drain() {
+        long budget = plugin.configValues().blockEditBudget().toNanos();
+        long start = System.nanoTime();
+
+        // always apply at least one chunk per tick, so that we make progress even with no budget
+        do {
+            ChunkEdits ce = queue.poll();
+            if (ce == null) break;
+            apply(ce);
+        } while (System.nanoTime() - start < budget);
+
+        if (queue.isEmpty()) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+    }
+
+    private void apply(ChunkEdits ce) {
+        Batch b = ce.batch();
+        Chunk c = ce.chunk();
+
+        Throwable err = null;
+        try {
+            for (int i = 0; i < ce.positions().length; i++) {
+                int pos = ce.positions()[i];
+                int x = pos & 15,
+                    z = (pos >> 4) & 15,
+                    y = (pos >> 8) + b.minY;
+    
+                c.getBlock(x, y, z).setType(ce.materials()[i], false);
+            }
+        } catch (RuntimeException e) {
+            err = e;
+        } finally {
+            c.removePluginChunkTicket(plugin);
+        }
+
+        b.settle(err);
+    }
+}
@@ -5,14 +5,93 @@ import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.text.Component;
 
 import java.time.Duration;
+import java.time.Instant;
+
+import xyz.baz9k.UHCGame.util.Profiler;
 
 import static xyz.baz9k.UHCGame.util.Utils.*;
 
 public class BossbarManager {
+    private final UHCGamePlugin plugin;
     private final GameManager gameManager;
     private final BossBar bossbar;
+    private StageFrames frames;
+
+    /**
+     * The bossbar's frames for the current stage. 
+     * The bar only needs to change when the displayed second changes, so each frame is one second.
+     */
+    private final class StageFrames {
+        private final GameStage stage;
+        private final Component title;
+        /**
+         * When the stage ends, or null if the stage does not end
+         */
+        private final Instant end;
+        private final long totalSecs;
+        /**
+         * Names of the frames, built as they are needed and indexed by remaining seconds
+         */
+        private final Component[] names;
+        private long shownSecs = -1;
+
+        StageFrames() {
+            this.stage = gameManager.getStage();
+            this.title = rendered(getBBTitle());
+
+            if (gameManager.isDeathmatch()) {
+                this.end = null;
+                this.totalSecs = 0;
+                this.names = new Component[] { title };
+            } else {
+                Duration remaining = gameManager.getRemainingStageDuration().orElse(Duration.ZERO);
+                this.end = Instant.now().plus(remaining);
+                this.totalSecs = gameManager.getStageDuration().toSeconds();
+                this.names = new Component[(int) Math.max(totalSecs, 0) + 1];
+            }
+        }
+
+        long remainingSecs() {
+            if (end == null) return 0;
+            long secs = Duration.between(Instant.now(), end).toSeconds();
+            return Math.max(0, Math.min(secs, totalSecs));
+        }
+
+        Component name(long secs) {
+            int i = (int) secs;
+            if (names[i] == null) {
+                names[i] = title
+                    .append(Component.text(" | "))
+                    .append(Component.text(getTimeString(secs)));
+            }
+            return names[i];
+        }
+
+        float progress(long secs) {
+            if (end == null || totalSecs <= 0) return 1;
+            return (float) secs / totalSecs;
+        }
+
+        /**
+         * Updates the bossbar if the displayed second has changed.
+         */
+        void show(BossBar bb) {
+            long secs = remainingSecs();
+            if (secs == shownSecs) {
+                Profiler.count(Profiler.Counter.BOSSBAR_SKIPPED);
+                return;
+            }
+            shownSecs = secs;
+
+            // the client smooths out the change in progress, so once a second is enough
+            bb.progress(progress(secs));
+            bb.name(name(secs));
+            Profiler.count(Profiler.Counter.BOSSBAR_SENT);
+        }
+    }
 
     public BossbarManager(UHCGamePlugin plugin) {
+        this.plugin = plugin;
         this.gameManager = plugin.getGameManager();
         this.bossbar = BossBar.bossBar(Component.empty(), 1, BossBar.Color.WHITE, BossBar.Overlay.PROGRESS);
     }
@@ -23,7 +102,8 @@ public class BossbarManager {
      */
     public void enable(Audience audience) {
         audience.showBossBar(bossbar);
-        updateBossbarStage();
+        // the bar is shared, so it only needs to be rebuilt if it isn't showing the current stage
+        if (frames == null || frames.stage != gameManager.getStage()) updateBossbarStage();
     }
 
     /**
@@ -35,28 +115,38 @@ public class BossbarManager {
     }
 
     /**
-     * This function runs every tick during the game.
+     * Shows the boss bar as a progress bar for a task running outside of the game (e.g. chunk pregeneration).
+     * @param audience the audience
+     * @param name Title of the bar
+     * @param progress Progress of the task, between 0 and 1
+     */
+    public void showProgress(Audience audience, Component name, float progress) {
+        frames = null;
+        bossbar.color(BossBar.Color.GREEN);
+        bossbar.name(rendered(name));
+        bossbar.progress((float) clamp(0, progress, 1));
+        audience.showBossBar(bossbar);
+    }
+
+    /**
+     * Hides the progress bar shown by {@link #showProgress}.
+     * @param audience the audience
+     */
+    public void hideProgress(Audience audience) {
+        if (gameManager.hasUHCStarted()) return;
+        audience.hideBossBar(bossbar);
+    }
+
+    /**
+     * This function runs every tick during the game. 
+     * The bossbar is only updated when the displayed second changes.
      */
     public void tick() {
-        if (gameManager.isDeathmatch()) {
-            bossbar.progress(1);
-            bossbar.name(getBBTitle());
+        if (frames == null) {
+            updateBossbarStage();
             return;
         }
-        // update progress bar
-        long remainingSecs = gameManager.getRemainingStageDuration()
-            .map(Duration::toSeconds)
-            .orElse(0L);
-        long totalSecs = gameManager.getStageDuration().toSeconds();
-        remainingSecs = Math.min(remainingSecs, totalSecs);
-
-        bossbar.progress((float) clamp(0, (double) remainingSecs / totalSecs, 1));
-        // change display title
-        var display = getBBTitle()
-            .append(Component.text(" | "))
-            .append(Component.text(getTimeString(remainingSecs)));
-            
-        bossbar.name(display);
+        frames.show(bossbar);
     }
 
     /**
@@ -64,7 +154,17 @@ public class BossbarManager {
      */
     public void updateBossbarStage() {
         bossbar.color(getBBColor());
-        tick();
+        frames = new StageFrames();
+        frames.show(bossbar);
+    }
+
+    /**
+     * The boss bar is one object shown to everyone, so its title is rendered once in the plugin's locale.
+     * @param c unrendered Component
+     * @return rendered Component
+     */
+    private Component rendered(Component c) {
+        return plugin.getLangManager().renderCached(c, UHCGamePlugin.getLocale());
     }
 
     private BossBar.Color getBBColor() {
@@ -9,11 +9,14 @@ import dev.jorel.commandapi.wrappers.*;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import xyz.baz9k.UHCGame.ConfigSnapshot.HideTeams;
 import xyz.baz9k.UHCGame.exception.UHCException;
 import xyz.baz9k.UHCGame.util.Debug;
+import xyz.baz9k.UHCGame.util.Profiler;
 
 import static xyz.baz9k.UHCGame.util.CommandAPIUtils.*;
 import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
+import static xyz.baz9k.UHCGame.util.Utils.getWordTime;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -31,6 +34,31 @@ import org.bukkit.scoreboard.*;
 
 @SuppressWarnings("unchecked")
 public final class Commands {
+    // translation keys, checked when the plugin is enabled
+    private static final Key CLEARTEAMS_SUCC         = Key.of("cmd.clearteams.succ"),
+                             HAS_STARTED_SUCC        = Key.of("cmd.has_started.succ"),
+                             INVSEE_FAIL_COMBATANT   = Key.of("cmd.invsee.fail.combatant"),
+                             DEBUG_ON                = Key.of("cmd.debug.on"),
+                             DEBUG_OFF               = Key.of("cmd.debug.off"),
+                             PERF_ON                 = Key.of("cmd.perf.on"),
+                             PERF_OFF                = Key.of("cmd.perf.off"),
+                             PERF_COUNTER            = Key.of("cmd.perf.counter"),
+                             PERF_COUNTER_HEADER     = Key.of("cmd.perf.counter_header"),
+                             PERF_DISABLED           = Key.of("cmd.perf.disabled"),
+                             PERF_HEADER             = Key.of("cmd.perf.header"),
+                             PERF_LINE               = Key.of("cmd.perf.line"),
+                             PERF_MOVE_FILTER        = Key.of("cmd.perf.move_filter"),
+                             PERF_SCOREBOARDS        = Key.of("cmd.perf.scoreboards"),
+                             PREGEN_ALREADY_COMPLETE = Key.of("cmd.pregen.already_complete"),
+                             PREGEN_START            = Key.of("cmd.pregen.start"),
+                             PREGEN_STOP             = Key.of("cmd.pregen.stop"),
+                             RESEED_START            = Key.of("cmd.reseed.start"),
+                             RESEED_SUCC             = Key.of("cmd.reseed.succ"),
+                             RESPAWN_SUCC            = Key.of("cmd.respawn.succ"),
+                             STAGE_SET_SUCC          = Key.of("cmd.stage_set.succ"),
+                             STATE_GET_SUCC          = Key.of("cmd.state_get.succ"),
+                             STATE_SET_SUCC          = Key.of("cmd.state_set.succ");
+
     private final UHCGamePlugin plugin;
 
     @Retention(RetentionPolicy.RUNTIME)
@@ -90,6 +118,8 @@ public final class Commands {
     /uhc teams assign <n: int>
     /uhc teams clear
     /uhc reseed <seed: str>
+    /uhc pregen
+    /uhc pregen stop
     /uhc respawn <target: players>
     /uhc respawn <target: players> <loc: location>
     /uhc state get <target: players>
@@ -101,6 +131,8 @@ public final class Commands {
     /uhc escape
     /uhc debug
     /uhc debug <true|false>
+    /uhc perf
+    /uhc perf <true|false>
     /uhc config
     /uhc config wipe
     /uhc config get <path: str>
@@ -192,7 +224,7 @@ public final class Commands {
             (sender, args) -> {
                 TeamManager tm = plugin.getTeamManager();
                 tm.resetAllPlayers();
-                sender.sendMessage(new Key("cmd.clearteams.succ").trans());
+                sender.sendMessage(CLEARTEAMS_SUCC.trans());
             }
         );
     }
@@ -204,9 +236,9 @@ public final class Commands {
         return new CommandAPICommand("reseed")
         .executes(
             (sender, args) -> {
-                Bukkit.getServer().sendMessage(new Key("cmd.reseed.start").trans().color(NamedTextColor.YELLOW));
+                Bukkit.getServer().sendMessage(RESEED_START.trans().color(NamedTextColor.YELLOW));
                 plugin.getWorldManager().reseedWorlds();
-                Bukkit.getServer().sendMessage(new Key("cmd.reseed.succ").trans().color(NamedTextColor.YELLOW));
+                Bukkit.getServer().sendMessage(RESEED_SUCC.trans().color(NamedTextColor.YELLOW));
             }
         );
     }
@@ -221,9 +253,43 @@ public final class Commands {
         )
         .executes(
             (sender, args) -> {
-                Bukkit.getServer().sendMessage(new Key("cmd.reseed.start").trans().color(NamedTextColor.YELLOW));
+                Bukkit.getServer().sendMessage(RESEED_START.trans().color(NamedTextColor.YELLOW));
                 plugin.getWorldManager().reseedWorlds((long) args[0], false);
-                Bukkit.getServer().sendMessage(new Key("cmd.reseed.succ").trans().color(NamedTextColor.YELLOW));
+                Bukkit.getServer().sendMessage(RESEED_SUCC.trans().color(NamedTextColor.YELLOW));
+            }
+        );
+    }
+
+    // uhc pregen
+    @RegisterUHCSubCommand
+    private CommandAPICommand pregen() {
+        return new CommandAPICommand("pregen")
+        .executes(
+            (sender, args) -> {
+                requireNotStarted();
+                var pm = plugin.getPregenManager();
+
+                if (pm.isComplete()) {
+                    sender.sendMessage(PREGEN_ALREADY_COMPLETE.trans());
+                    return;
+                }
+                pm.start();
+                Bukkit.getServer().sendMessage(PREGEN_START.trans().color(NamedTextColor.YELLOW));
+            }
+        );
+    }
+
+    // uhc pregen stop
+    @RegisterUHCSubCommand
+    private CommandAPICommand pregenStop() {
+        return new CommandAPICommand("pregen")
+        .withArguments(
+            new LiteralArgument("stop")
+        )
+        .executes(
+            (sender, args) -> {
+                plugin.getPregenManager().stop();
+                Bukkit.getServer().sendMessage(PREGEN_STOP.trans().color(NamedTextColor.YELLOW));
             }
         );
     }
@@ -251,7 +317,7 @@ public final class Commands {
                 }
 
                 if (successes.size() > 0) {
-                    sender.sendMessage(new Key("cmd.respawn.succ").trans(
+                    sender.sendMessage(RESPAWN_SUCC.trans(
                         String.join(", ", successes)
                     ));
                 }
@@ -285,7 +351,7 @@ public final class Commands {
                 }
 
                 if (successes.size() > 0) {
-                    sender.sendMessage(new Key("cmd.respawn.succ").trans(
+                    sender.sendMessage(RESPAWN_SUCC.trans(
                         String.join(", ", successes)
                     ));
                 }
@@ -308,7 +374,7 @@ public final class Commands {
                 for (Player p : (Collection<Player>) args[0]) {
                     int team = tm.getTeam(p);
                     PlayerState state = tm.getPlayerState(p);
-                    sender.sendMessage(new Key("cmd.state_get.succ").trans(p.getName(), state, team));
+                    sender.sendMessage(STATE_GET_SUCC.trans(p.getName(), state, team));
                 }
             }
         );
@@ -331,7 +397,7 @@ public final class Commands {
                         case "spectator" -> tm.setSpectator(p);
                         case "combatant" -> tm.setUnassignedCombatant(p);
                     }
-                    sender.sendMessage(new Key("cmd.state_get.succ").trans(p.getName(), tm.getPlayerState(p), tm.getTeam(p)));
+                    sender.sendMessage(STATE_GET_SUCC.trans(p.getName(), tm.getPlayerState(p), tm.getTeam(p)));
                 }
             }
         );
@@ -354,7 +420,7 @@ public final class Commands {
                 try {
                     for (Player p : (Collection<Player>) args[0]) {
                         plugin.getTeamManager().assignPlayerToTeam(p, t);
-                        sender.sendMessage(new Key("cmd.state_set.succ").trans(p.getName(), tm.getPlayerState(p), tm.getTeam(p)));
+                        sender.sendMessage(STATE_SET_SUCC.trans(p.getName(), tm.getPlayerState(p), tm.getTeam(p)));
                     }
                 } catch (IllegalArgumentException e) {
                     throw CommandAPI.fail(e.getMessage());
@@ -375,23 +441,21 @@ public final class Commands {
                 GameManager gm = plugin.getGameManager();
 
                 gm.incrementStage();
-                sender.sendMessage(new Key("cmd.stage_set.succ").trans(gm.getStage()));
+                sender.sendMessage(STAGE_SET_SUCC.trans(gm.getStage()));
             }
         );
     }
 
     private Argument<GameStage> gameStageArgument(String nodeName) {
         return new CustomArgument<GameStage, String>(new StringArgument(nodeName), info -> {
-            try {
-                return GameStage.valueOf(info.input());
-            } catch (IllegalArgumentException | NullPointerException e) {
+            GameStage s = plugin.getGameManager().getTimeline().byName(info.input());
+            if (s == null) {
                 throw new CustomArgumentException(new MessageBuilder("Unknown stage: ").appendArgInput());
             }
-            // cmd requires getting the exact GS name, so use GameStage::name, not GameStage::toString
+            return s;
         }).replaceSuggestions(
-            ArgumentSuggestions.strings(
-                Arrays.stream(GameStage.values()).map(GameStage::name).toArray(String[]::new)
-            )
+            // stages come from config, so suggest from the current timeline
+            ArgumentSuggestions.strings(info -> plugin.getGameManager().getTimeline().names())
         );
     }
 
@@ -409,7 +473,7 @@ public final class Commands {
                 GameStage s = (GameStage) args[0];
 
                 gm.setStage(s);
-                sender.sendMessage(new Key("cmd.stage_set.succ").trans(gm.getStage()));
+                sender.sendMessage(STAGE_SET_SUCC.trans(gm.getStage()));
             }
         );
     }
@@ -421,7 +485,7 @@ public final class Commands {
         .executes(
             (sender, args) -> {
                 if (plugin.getGameManager().hasUHCStarted()) {
-                    sender.sendMessage(new Key("cmd.has_started.succ").trans());
+                    sender.sendMessage(HAS_STARTED_SUCC.trans());
                     return;
                 }
                 requireStarted();
@@ -451,7 +515,7 @@ public final class Commands {
             (sender, args) -> {
                 Debug.setDebug(!Debug.isDebugging());
 
-                Key onOff = new Key("cmd.debug.%s", Debug.isDebugging() ? "on" : "off");
+                Key onOff = Debug.isDebugging() ? DEBUG_ON : DEBUG_OFF;
                 sender.sendMessage(onOff.trans());
             }
         );
@@ -467,7 +531,71 @@ public final class Commands {
             (sender, args) -> {
                 Debug.setDebug((boolean) args[0]);
 
-                Key onOff = new Key("cmd.debug.%s", Debug.isDebugging() ? "on" : "off");
+                Key onOff = Debug.isDebugging() ? DEBUG_ON : DEBUG_OFF;
+                sender.sendMessage(onOff.trans());
+            }
+        );
+    }
+
+    // uhc perf
+    @RegisterUHCSubCommand
+    private CommandAPICommand perf() {
+        return new CommandAPICommand("perf")
+        .executes(
+            (sender, args) -> {
+                if (!Profiler.isEnabled()) {
+                    sender.sendMessage(PERF_DISABLED.trans().color(NamedTextColor.YELLOW));
+                    return;
+                }
+
+                sender.sendMessage(PERF_HEADER.trans(getWordTime(Profiler.WINDOW)));
+                for (Profiler.Section s : Profiler.Section.values()) {
+                    var snap = s.snapshot();
+                    if (snap.count() == 0) continue;
+
+                    sender.sendMessage(PERF_LINE.trans(
+                        s.name().toLowerCase(),
+                        snap.count(),
+                        String.format("%.1f", snap.p50() / 1e3),
+                        String.format("%.1f", snap.p99() / 1e3),
+                        String.format("%.1f", snap.max() / 1e3),
+                        String.format("%.1f", snap.total() / 1e6)
+                    ));
+                }
+
+                sender.sendMessage(PERF_COUNTER_HEADER.trans());
+                for (Profiler.Counter c : Profiler.Counter.values()) {
+                    sender.sendMessage(PERF_COUNTER.trans(c.name().toLowerCase(), c.get()));
+                }
+
+                long filtered = Profiler.Counter.MOVE_FILTERED.get(),
+                     moves = filtered + Profiler.Counter.MOVE_HANDLED.get();
+                if (moves > 0) {
+                    sender.sendMessage(PERF_MOVE_FILTER.trans(
+                        String.format("%.1f", 100.0 * filtered / moves),
+                        filtered,
+                        moves
+                    ));
+                }
+
+                sender.sendMessage(PERF_SCOREBOARDS.trans(
+                    plugin.getHUDManager().numScoreboardsInUse(),
+                    Bukkit.getOnlinePlayers().size()
+                ));
+            }
+        );
+    }
+
+    // uhc perf <true|false>
+    @RegisterUHCSubCommand
+    private CommandAPICommand perfOnOff() {
+        return new CommandAPICommand("perf")
+        .withArguments(new BooleanArgument("status"))
+        .executes(
+            (sender, args) -> {
+                Profiler.setEnabled((boolean) args[0]);
+
+                Key onOff = Profiler.isEnabled() ? PERF_ON : PERF_OFF;
                 sender.sendMessage(onOff.trans());
             }
         );
@@ -495,6 +623,7 @@ public final class Commands {
                 (sender, args) -> {
                     this.plugin.saveResource("config.yml", true);
                     this.plugin.reloadConfig();
+                    this.plugin.configValues().recompile();
                 }
         );
     }
@@ -520,7 +649,7 @@ public final class Commands {
         .executesPlayer((sender, args) -> {
             requireStarted();
             if (!plugin.getTeamManager().getPlayerState(sender).isSpectating()) {
-                throw fail(new Key("cmd.invsee.fail.combatant"));
+                throw fail(INVSEE_FAIL_COMBATANT);
             }
 
             plugin.getMenuManager().invSee(sender, (Player) args[0]);
@@ -534,8 +663,7 @@ public final class Commands {
             .withArguments(new GreedyStringArgument("msg"))
             .executesPlayer((sender, args) -> {
                 requireStarted();
-                int hideTeams = plugin.configValues().hideTeams();
-                if (hideTeams == 2) {
+                if (plugin.configValues().hideTeams() == HideTeams.HIDE_ALL) {
                     throw CommandAPI.fail("/tc is disabled, since teams are hidden");
                 }
 
@@ -0,0 +1,373 @@
+package xyz.baz9k.UHCGame;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Predicate;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import net.kyori.adventure.bossbar.BossBar;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
+
+/**
+ * The config's values, read out of the YAML tree once and converted into their typed forms.
+ * <p>
+ * A snapshot is immutable. {@link ConfigValues} compiles a new one when the game starts and whenever the config is edited,
+ * so gameplay code can read plain fields instead of looking up config paths.
+ * @param wbSizes Diameters of the world borders, by name
+ * @param intervals Durations of the stages, by name
+ * @param timeline The stages of the game, in order (see {@link StageTimeline})
+ * @param global Global settings
+ * @param team Team settings
+ * @param player Player settings
+ * @param perf Performance settings
+ */
+public record ConfigSnapshot(
+    Map<String, Double> wbSizes,
+    Map<String, Duration> intervals,
+    List<StageSpec> timeline,
+    Global global,
+    Teams team,
+    Players player,
+    Perf perf
+) {
+    // translation keys, checked when the plugin is enabled
+    private static final Key INVALID_STAGE = Key.of("err.timeline.invalid_stage");
+
+    /**
+     * global.dn_cycle
+     */
+    public enum DayNightCycle {
+        CYCLE_5_MIN  (4, 0,     false),
+        CYCLE_10_MIN (2, 0,     false),
+        CYCLE_20_MIN (0, 0,     true),
+        ALWAYS_DAY   (0, 0,     false),
+        ALWAYS_NIGHT (0, 18000, false);
+
+        /**
+         * Ticks to add to the world time every tick (in addition to the daylight cycle)
+         */
+        private final int extraTicks;
+        /**
+         * World time at the start of the game
+         */
+        private final long startTime;
+        /**
+         * If the doDaylightCycle gamerule is enabled
+         */
+        private final boolean daylightCycle;
+
+        private DayNightCycle(int extraTicks, long startTime, boolean daylightCycle) {
+            this.extraTicks = extraTicks;
+            this.startTime = startTime;
+            this.daylightCycle = daylightCycle;
+        }
+
+        public int extraTicks() { return extraTicks; }
+        public long startTime() { return startTime; }
+        public boolean daylightCycle() { return daylightCycle; }
+    }
+
+    /**
+     * global.spreadplayers
+     */
+    public enum SpreadMethod {
+        BY_TEAMS,
+        INDIVIDUALLY
+    }
+
+    /**
+     * team.hide_teams
+     */
+    public enum HideTeams {
+        /**
+         * Display all teams
+         */
+        SHOW_ALL,
+        /**
+         * Display only your team
+         */
+        SHOW_OWN,
+        /**
+         * Do not display teams
+         */
+        HIDE_ALL
+    }
+
+    /**
+     * player.player_drops
+     */
+    public enum PlayerDrops {
+        NONE,
+        GOLDEN_APPLE,
+        PLAYER_HEAD
+    }
+
+    /**
+     * A stage in the timeline (an entry of the timeline list in config).
+     * <p>
+     * duration and diameter are either a number (of seconds and blocks) or the name of an entry in intervals or wb_size.
+     * @param name Name of the stage
+     * @param lang The stage's messages are bossbar.&lt;lang&gt; and chat.stage_base.&lt;lang&gt; (lang defaults to name)
+     * @param duration Duration of the stage, or empty for the last stage (which lasts until the game ends)
+     * @param diameter Diameter of world border that this stage progresses to
+     * @param instant If true, the border jumps to the diameter at the start of the stage. If false, it moves there over the stage
+     * @param purge If true, mobs are cleared and mob spawning is disabled when the stage starts
+     * @param bossbar Color of the boss bar
+     * @param titleColor Color of the boss bar's title
+     * @param bodyColor Color of the stage's chat message
+     * @param bold If the chat message is bold
+     */
+    public record StageSpec(
+        String name,
+        String lang,
+        Optional<Duration> duration,
+        double diameter,
+        boolean instant,
+        boolean purge,
+        BossBar.Color bossbar,
+        NamedTextColor titleColor,
+        NamedTextColor bodyColor,
+        boolean bold
+    ) { }
+
+    public record Global(
+        boolean witherBonus,
+        boolean netherSpawn,
+        DayNightCycle dnCycle,
+        SpreadMethod spreadPlayers,
+        boolean autoSmelt,
+        boolean autoCook,
+        boolean alwaysFlint,
+        int appleDropRate,
+        boolean shearApple,
+        boolean allLeaves
+    ) { }
+
+    public record Teams(
+        HideTeams hideTeams,
+        boolean friendlyFire,
+        int bossTeam,
+        boolean sardines
+    ) { }
+
+    public record Players(
+        int maxHealth,
+        double movementSpeed,
+        Optional<Duration> gracePeriod,
+        Optional<Duration> finalHealPeriod,
+        boolean naturalRegen,
+        boolean drowningDamage,
+        boolean fallDamage,
+        boolean fireDamage,
+        boolean freezeDamage,
+        OptionalInt hastyBoys,
+        OptionalInt luckyBoys,
+        boolean proxTrack,
+        PlayerDrops playerDrops
+    ) { }
+
+    public record Perf(
+        Duration blockEditBudget,
+        int pregenConcurrency,
+        double pregenMinTPS,
+        boolean requirePregen,
+        int seedPoolSize,
+        Duration seedVetInterval,
+        int hudFlushInterval,
+        int moveYawSectors,
+        int moveDistanceBucket
+    ) { }
+
+    /**
+     * Reads a snapshot out of a config.
+     * <p>
+     * Options chosen by index fall back to their default if the index is out of range.
+     * @param cfg the config
+     * @param langHasKey Tests if a translation key exists, used to check each stage's lang
+     * @return the snapshot
+     * @throws IllegalArgumentException if the timeline is invalid
+     */
+    public static ConfigSnapshot compile(ConfigurationSection cfg, Predicate<Key> langHasKey) {
+        Map<String, Double> wbSizes = new HashMap<>();
+        ConfigurationSection wb = cfg.getConfigurationSection("wb_size");
+        if (wb != null) {
+            for (String k : wb.getKeys(false)) {
+                if (wb.get(k) instanceof Number n) wbSizes.put(k, n.doubleValue());
+            }
+        }
+
+        Map<String, Duration> intervals = new HashMap<>();
+        ConfigurationSection iv = cfg.getConfigurationSection("intervals");
+        if (iv != null) {
+            for (String k : iv.getKeys(false)) {
+                if (iv.isInt(k)) intervals.put(k, Duration.ofSeconds(iv.getInt(k)));
+            }
+        }
+
+        List<StageSpec> timeline = new ArrayList<>();
+        List<Map<?, ?>> stages = cfg.getMapList("timeline");
+        for (int i = 0; i < stages.size(); i++) {
+            boolean last = i == stages.size() - 1;
+            timeline.add(stageSpec(i, stages.get(i), last, wbSizes, intervals, langHasKey));
+        }
+
+        var global = new Global(
+            cfg.getBoolean("global.wither_bonus"),
+            cfg.getBoolean("global.nether_spawn"),
+            option(DayNightCycle.values(), cfg.getInt("global.dn_cycle"), DayNightCycle.ALWAYS_DAY),
+            option(SpreadMethod.values(), cfg.getInt("global.spreadplayers"), SpreadMethod.BY_TEAMS),
+            cfg.getBoolean("global.auto_smelt"),
+            cfg.getBoolean("global.auto_cook"),
+            cfg.getBoolean("global.always_flint"),
+            option(new int[]{0, 1, 2, 4, 8}, cfg.getInt("global.apple_drop_rate"), 1),
+            cfg.getBoolean("global.shear_apple"),
+            cfg.getBoolean("global.all_leaves")
+        );
+
+        var team = new Teams(
+            option(HideTeams.values(), cfg.getInt("team.hide_teams"), HideTeams.HIDE_ALL),
+            cfg.getBoolean("team.friendly_fire"),
+            cfg.getInt("team.boss_team"),
+            cfg.getBoolean("team.sardines")
+        );
+
+        var player = new Players(
+            option(new int[]{10, 20, 40, 60}, cfg.getInt("player.max_health"), 20),
+            option(new double[]{0.5, 1, 2, 3}, cfg.getInt("player.mv_speed"), 1),
+            seconds(cfg.getInt("player.grace_period")),
+            seconds(cfg.getInt("player.final_heal")),
+            cfg.getBoolean("player.natural_regen"),
+            cfg.getBoolean("player.drowning_damage"),
+            cfg.getBoolean("player.fall_damage"),
+            cfg.getBoolean("player.fire_damage"),
+            cfg.getBoolean("player.freeze_damage"),
+            level(cfg.getInt("player.hasty_boys")),
+            level(cfg.getInt("player.lucky_boys")),
+            cfg.getBoolean("player.prox_track"),
+            option(PlayerDrops.values(), cfg.getInt("player.player_drops"), PlayerDrops.NONE)
+        );
+
+        var perf = new Perf(
+            Duration.ofMillis(cfg.getInt("perf.block_edit_budget_ms")),
+            Math.max(1, cfg.getInt("perf.pregen_concurrency")),
+            cfg.getDouble("perf.pregen_min_tps"),
+            cfg.getBoolean("perf.require_pregen"),
+            cfg.getInt("perf.seed_pool_size"),
+            Duration.ofSeconds(cfg.getInt("perf.seed_vet_interval")),
+            Math.max(1, cfg.getInt("perf.hud_flush_interval")),
+            Math.max(1, cfg.getInt("perf.move_yaw_sectors")),
+            Math.max(1, cfg.getInt("perf.move_distance_bucket"))
+        );
+
+        return new ConfigSnapshot(
+            Collections.unmodifiableMap(wbSizes),
+            Collections.unmodifiableMap(intervals),
+            Collections.unmodifiableList(timeline),
+            global, team, player, perf
+        );
+    }
+
+    private static StageSpec stageSpec(int i, Map<?, ?> m, boolean last, Map<String, Double> wbSizes, Map<String, Duration> intervals, Predicate<Key> langHasKey) {
+        if (!(m.get("name") instanceof String name)) throw invalidStage(i, "name");
+        String lang = m.get("lang") instanceof String l ? l : name;
+        for (Key k : GameStage.langKeys(lang)) {
+            if (!langHasKey.test(k)) throw invalidStage(i, "lang");
+        }
+
+        Optional<Duration> duration;
+        if (last) {
+            duration = Optional.empty();
+        } else {
+            Object d = m.get("duration");
+            if (d instanceof Number n) duration = Optional.of(Duration.ofSeconds(n.longValue()));
+            else if (d instanceof String ref && intervals.containsKey(ref)) duration = Optional.of(intervals.get(ref));
+            else throw invalidStage(i, "duration");
+        }
+
+        double diameter;
+        Object dia = m.get("diameter");
+        if (dia instanceof Number n) diameter = n.doubleValue();
+        else if (dia instanceof String ref && wbSizes.containsKey(ref)) diameter = wbSizes.get(ref);
+        else throw invalidStage(i, "diameter");
+
+        BossBar.Color bossbar;
+        try {
+            bossbar = BossBar.Color.valueOf(string(m, "bossbar", "white").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw invalidStage(i, "bossbar");
+        }
+        NamedTextColor titleColor = NamedTextColor.NAMES.value(string(m, "title_color", "white").toLowerCase(Locale.ROOT));
+        if (titleColor == null) throw invalidStage(i, "title_color");
+        NamedTextColor bodyColor = NamedTextColor.NAMES.value(string(m, "body_color", "white").toLowerCase(Locale.ROOT));
+        if (bodyColor == null) throw invalidStage(i, "body_color");
+
+        return new StageSpec(name, lang, duration, diameter,
+            bool(m, "instant", true),
+            bool(m, "purge", false),
+            bossbar, titleColor, bodyColor,
+            bool(m, "bold", false)
+        );
+    }
+
+    private static IllegalArgumentException invalidStage(int i, String field) {
+        return INVALID_STAGE.transErr(IllegalArgumentException.class, i + 1, field);
+    }
+
+    private static String string(Map<?, ?> m, String key, String def) {
+        return m.get(key) instanceof String s ? s : def;
+    }
+
+    private static boolean bool(Map<?, ?> m, String key, boolean def) {
+        return m.get(key) instanceof Boolean b ? b : def;
+    }
+
+    /**
+     * @return the option at the index, or the fallback if the index is not an option
+     */
+    private static <E extends Enum<E>> E option(E[] values, int i, E fallback) {
+        if (i < 0 || i >= values.length) return fallback;
+        return values[i];
+    }
+
+    /**
+     * @return the option at the index, or the fallback if the index is not an option
+     */
+    private static int option(int[] values, int i, int fallback) {
+        if (i < 0 || i >= values.length) return fallback;
+        return values[i];
+    }
+
+    /**
+     * @return the option at the index, or the fallback if the index is not an option
+     */
+    private static double option(double[] values, int i, double fallback) {
+        if (i < 0 || i >= values.length) return fallback;
+        return values[i];
+    }
+
+    /**
+     * @return the duration, or empty if the number of seconds is negative (disabled)
+     */
+    private static Optional<Duration> seconds(int s) {
+        if (s < 0) return Optional.empty();
+        return Optional.of(Duration.ofSeconds(s));
+    }
+
+    /**
+     * @return the level, or empty if the level is not positive (disabled)
+     */
+    private static OptionalInt level(int v) {
+        if (v > 0) return OptionalInt.of(v);
+        return OptionalInt.empty();
+    }
+}
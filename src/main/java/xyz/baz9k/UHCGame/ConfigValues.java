@@ -11,19 +11,80 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.SkullMeta;
 
-import xyz.baz9k.UHCGame.util.Path;
-
+import xyz.baz9k.UHCGame.ConfigSnapshot.DayNightCycle;
+import xyz.baz9k.UHCGame.ConfigSnapshot.HideTeams;
+import xyz.baz9k.UHCGame.ConfigSnapshot.PlayerDrops;
+import xyz.baz9k.UHCGame.ConfigSnapshot.SpreadMethod;
+import xyz.baz9k.UHCGame.util.Debug;
+
+/**
+ * Accessors for the plugin's config.
+ * <p>
+ * Values are read from a {@link ConfigSnapshot}, which is recompiled by {@link #recompile}
+ * whenever the config changes, so reading a value does not look up its path in the config.
+ */
 public class ConfigValues {
     private final UHCGamePlugin plugin;
-    private final FileConfiguration cfg;
+
+    /**
+     * A snapshot and the timeline compiled from it, swapped together so readers never see one without the other
+     */
+    private record Compiled(ConfigSnapshot snapshot, StageTimeline timeline) {
+        static Compiled of(ConfigSnapshot snapshot) {
+            return new Compiled(snapshot, StageTimeline.compile(snapshot));
+        }
+    }
+    private volatile Compiled compiled;
 
     public ConfigValues(UHCGamePlugin plugin) {
         this.plugin = plugin;
-        this.cfg = plugin.getConfig();
+        recompile();
+    }
+
+    private FileConfiguration cfg() {
+        return plugin.getConfig();
     }
 
     public Object get(String path) {
-        return cfg.get(path);
+        return cfg().get(path);
+    }
+
+    /**
+     * Compiles a new snapshot of the config and replaces the current one.
+     * This should be called whenever the config is edited.
+     * <p>
+     * If the config can't be compiled, the error is logged and the current snapshot is kept
+     * (or if there is none yet, the snapshot is compiled from the default config).
+     */
+    public void recompile() {
+        Compiled prev = compiled;
+        try {
+            compiled = Compiled.of(ConfigSnapshot.compile(cfg(), plugin.getLangManager()::hasKey));
+        } catch (RuntimeException e) {
+            Debug.printError(e);
+            if (compiled == null) {
+                compiled = Compiled.of(ConfigSnapshot.compile(cfg().getDefaults(), plugin.getLangManager()::hasKey));
+            }
+        }
+
+        // the shared lobby scoreboards are chosen by team.hide_teams
+        if (prev != null && prev.snapshot().team().hideTeams() != hideTeams() && !plugin.getGameManager().hasUHCStarted()) {
+            plugin.getHUDManager().refreshLobbyBoards();
+        }
+    }
+
+    /**
+     * @return the current snapshot of the config
+     */
+    public ConfigSnapshot snapshot() {
+        return compiled.snapshot();
+    }
+
+    /**
+     * @return the stages of the game, compiled from the current snapshot
+     */
+    public StageTimeline timeline() {
+        return compiled.timeline();
     }
 
     /**
@@ -31,9 +92,9 @@ public class ConfigValues {
      * @return the diameter of the specified world border
      */
     public OptionalDouble wbDiameter(String wbName) {
-        String path = Path.join("wb_size", wbName);
-        if (cfg.isDouble(path)) {
-            return OptionalDouble.of(cfg.getDouble(path));
+        Double d = snapshot().wbSizes().get(wbName);
+        if (d != null) {
+            return OptionalDouble.of(d);
         }
         return OptionalDouble.empty();
     }
@@ -44,7 +105,7 @@ public class ConfigValues {
      * @return the diameter of the specified world border
      */
     public double wbDiameter(String wbName, double def) {
-        return cfg.getDouble(Path.join("wb_size", wbName), def);
+        return snapshot().wbSizes().getOrDefault(wbName, def);
     }
 
     /**
@@ -52,12 +113,7 @@ public class ConfigValues {
      * @return the duration of the stage
      */
     public Optional<Duration> stageDuration(String cfgStage) {
-        String path = Path.join("intervals", cfgStage);
-        if (cfg.isInt(path)) {
-            var dur = Duration.ofSeconds(cfg.getInt(path));
-            return Optional.of(dur);
-        }
-        return Optional.empty();
+        return Optional.ofNullable(snapshot().intervals().get(cfgStage));
     }
 
     /// GLOBAL ///
@@ -66,35 +122,28 @@ public class ConfigValues {
      * @return if wither bonus round is enabled
      */
     public boolean witherBonus() {
-        return cfg.getBoolean("global.wither_bonus");
+        return snapshot().global().witherBonus();
     }
     
     /**
      * @return if players spawn in the nether
      */
     public boolean netherSpawn() {
-        return cfg.getBoolean("global.nether_spawn");
+        return snapshot().global().netherSpawn();
     }
 
     /**
-     * @return
-     * <p> 0: 05:00 per cycle
-     * <p> 1: 10:00 per cycle
-     * <p> 2: 20:00 per cycle
-     * <p> 3: Always Day
-     * <p> 4: Always Night
+     * @return the length of the day/night cycle (or if it's always day or night)
      */
-    public int dnCycle() {
-        return cfg.getInt("global.dn_cycle");
+    public DayNightCycle dnCycle() {
+        return snapshot().global().dnCycle();
     }
 
     /**
-     * @return
-     * <p> 0: Spread players by teams
-     * <p> 1: Spread players individually
+     * @return if players are spread by teams or individually
      */
-    public int spreadPlayersMethod() {
-        return cfg.getInt("global.spreadplayers");
+    public SpreadMethod spreadPlayersMethod() {
+        return snapshot().global().spreadPlayers();
     }
 
         
@@ -102,7 +151,7 @@ public class ConfigValues {
      * @return if iron, gold, copper autosmelt when mined
      */
     public boolean autoSmelt() {
-        return cfg.getBoolean("global.auto_smelt");
+        return snapshot().global().autoSmelt();
     }
 
         
@@ -110,7 +159,7 @@ public class ConfigValues {
      * @return if mobs auto cook when killed
      */
     public boolean autoCook() {
-        return cfg.getBoolean("global.auto_cook");
+        return snapshot().global().autoCook();
     }
 
         
@@ -118,7 +167,7 @@ public class ConfigValues {
      * @return if gravel always drops flint
      */
     public boolean alwaysFlint() {
-        return cfg.getBoolean("global.always_flint");
+        return snapshot().global().alwaysFlint();
     }
 
         
@@ -126,7 +175,7 @@ public class ConfigValues {
      * @return the drop rate multiplier of apple drops
      */
     public int appleDropRate() {
-        return new int[]{0, 1, 2, 4, 8}[cfg.getInt("global.apple_drop_rate")];
+        return snapshot().global().appleDropRate();
     }
 
         
@@ -134,7 +183,7 @@ public class ConfigValues {
      * @return if shearing drops apples
      */
     public boolean shearApple() {
-        return cfg.getBoolean("global.shear_apple");
+        return snapshot().global().shearApple();
     }
 
         
@@ -142,25 +191,22 @@ public class ConfigValues {
      * @return if all leaves drop apples
      */
     public boolean allLeaves() {
-        return cfg.getBoolean("global.all_leaves");
+        return snapshot().global().allLeaves();
     }
     /// TEAMS ///
 
     /**
-     * @return
-     * <p>0: Display all teams
-     * <p>1: Display only your team
-     * <p>2: Do not display teams
+     * @return which teams are displayed to each player
      */
-    public int hideTeams() {
-        return cfg.getInt("teams.hide_teams");
+    public HideTeams hideTeams() {
+        return snapshot().team().hideTeams();
     }
 
     /**
      * @return whether friendly fire is enabled or not
      */
     public boolean allowFriendlyFire() {
-        return cfg.getBoolean("team.friendly_fire");
+        return snapshot().team().friendlyFire();
     }
 
     public record BossMode(boolean enabled, int nPlayers, int bossHealth) {
@@ -180,7 +226,7 @@ public class ConfigValues {
      * <p> If enabled, the health of players in boss team (0 if disabled)
      */
     public BossMode bossMode() {
-        int bossN = cfg.getInt("team.boss_team");
+        int bossN = snapshot().team().bossTeam();
         
         if (bossN > 0) {
             int normalHealth = maxHealth();
@@ -196,7 +242,7 @@ public class ConfigValues {
      * @return if sardines is enabled
      */
     public boolean sardines() {
-        return cfg.getBoolean("team.sardines");
+        return snapshot().team().sardines();
     }
 
     /// PLAYER ///
@@ -205,103 +251,91 @@ public class ConfigValues {
      * @return amount of health to assign (based on player.max_health)
      */
     public int maxHealth() {
-        return new int[]{10, 20, 40, 60}[cfg.getInt("player.max_health")];
+        return snapshot().player().maxHealth();
     }
 
     /**
      * @return speed of players (based on player.mv_speed)
      */
     public double movementSpeed() {
-        return new double[]{0.5,1,2,3}[cfg.getInt("player.mv_speed")];
+        return snapshot().player().movementSpeed();
     }
 
     /**
      * @return length of time before grace period ends, or empty if grace period is not enabled
      */
     public Optional<Duration> gracePeriod() {
-        int grace = cfg.getInt("player.grace_period");
-
-        if (grace < 0) return Optional.empty();
-        return Optional.of(Duration.ofSeconds(grace));
+        return snapshot().player().gracePeriod();
     }
 
     /**
      * @return length of time before final heal occurs, or empty if final heal is not enabled
      */
     public Optional<Duration> finalHealPeriod() {
-        int fh = cfg.getInt("player.final_heal");
-
-        if (fh < 0) return Optional.empty();
-        return Optional.of(Duration.ofSeconds(fh));
+        return snapshot().player().finalHealPeriod();
     }
 
     /**
      * @return if natural regen is enabled
      */
     public boolean naturalRegen() {
-        return cfg.getBoolean("player.natural_regen");
+        return snapshot().player().naturalRegen();
     }
 
     /**
      * @return if drowning damage is enabled
      */
     public boolean drowningDamage() {
-        return cfg.getBoolean("player.drowning_damage");
+        return snapshot().player().drowningDamage();
     }
 
     /**
      * @return if fall damage is enabled
      */
     public boolean fallDamage() {
-        return cfg.getBoolean("player.fall_damage");
+        return snapshot().player().fallDamage();
     }
 
     /**
      * @return if fire damage is enabled
      */
     public boolean fireDamage() {
-        return cfg.getBoolean("player.fire_damage");
+        return snapshot().player().fireDamage();
     }
 
     /**
      * @return if freeze damage is enabled
      */
     public boolean freezeDamage() {
-        return cfg.getBoolean("player.freeze_damage");
+        return snapshot().player().freezeDamage();
     }
 
     /**
      * @return the level of Hasty Boys, if enabled
      */
     public OptionalInt hastyBoys() {
-        int v = cfg.getInt("player.hasty_boys");
-        
-        if (v > 0) return OptionalInt.of(v);
-        return OptionalInt.empty();
+        return snapshot().player().hastyBoys();
     }
 
     /**
      * @return the level set for Lucky Boys, if enabled
      */
     public OptionalInt luckyBoys() {
-        int v = cfg.getInt("player.lucky_boys");
-        
-        if (v > 0) return OptionalInt.of(v);
-        return OptionalInt.empty();
+        return snapshot().player().luckyBoys();
     }
 
     /**
      * @return if compasses track nearest non-team player
      */
     public boolean proxTrack() {
-        return cfg.getBoolean("player.prox_track");
+        return snapshot().player().proxTrack();
     }
 
     /**
      * @return config value of player.player_drops
      */
-    public int playerDropsIndex() {
-        return cfg.getInt("player.player_drops");
+    public PlayerDrops playerDropsType() {
+        return snapshot().player().playerDrops();
     }
 
     /**
@@ -309,16 +343,81 @@ public class ConfigValues {
      * @return extra item stack to give on player death
      */
     public Optional<ItemStack> playerDrops(Player p) {
-        return switch (playerDropsIndex()) {
-            case 1 -> Optional.of(new ItemStack(Material.GOLDEN_APPLE));
-            case 2 -> {
+        return switch (playerDropsType()) {
+            case GOLDEN_APPLE -> Optional.of(new ItemStack(Material.GOLDEN_APPLE));
+            case PLAYER_HEAD -> {
                 ItemStack stack = new ItemStack(Material.PLAYER_HEAD);
                 stack.editMeta(SkullMeta.class, m -> {
                     m.setOwningPlayer(p);
                 });
                 yield Optional.of(stack);
             }
-            default -> Optional.empty();
+            case NONE -> Optional.empty();
         };
     }
+
+    /// PERF ///
+
+    /**
+     * @return the amount of time per tick that can be spent applying queued block edits
+     */
+    public Duration blockEditBudget() {
+        return snapshot().perf().blockEditBudget();
+    }
+
+    /**
+     * @return the max number of chunks that can be loading at once during pregeneration
+     */
+    public int pregenConcurrency() {
+        return snapshot().perf().pregenConcurrency();
+    }
+
+    /**
+     * @return the TPS under which pregeneration pauses
+     */
+    public double pregenMinTPS() {
+        return snapshot().perf().pregenMinTPS();
+    }
+
+    /**
+     * @return if the game should require the worlds to be pregenerated before starting
+     */
+    public boolean requirePregen() {
+        return snapshot().perf().requirePregen();
+    }
+
+    /**
+     * @return the number of vetted seeds to keep ready for reseeding
+     */
+    public int seedPoolSize() {
+        return snapshot().perf().seedPoolSize();
+    }
+
+    /**
+     * @return how often to try vetting a new seed between games
+     */
+    public Duration seedVetInterval() {
+        return snapshot().perf().seedVetInterval();
+    }
+
+    /**
+     * @return the number of ticks between updates of the position and health parts of the HUD
+     */
+    public int hudFlushInterval() {
+        return snapshot().perf().hudFlushInterval();
+    }
+
+    /**
+     * @return the number of sectors a player's facing is split into when deciding if a head turn updates the HUD (should be a multiple of 8)
+     */
+    public int moveYawSectors() {
+        return snapshot().perf().moveYawSectors();
+    }
+
+    /**
+     * @return the size in blocks of the grid a player has to move across before teammates' HUDs are updated
+     */
+    public int moveDistanceBucket() {
+        return snapshot().perf().moveDistanceBucket();
+    }
 }
@@ -7,12 +7,11 @@ import org.bukkit.GameRule;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
-import org.bukkit.Tag;
 import org.bukkit.World;
 import org.bukkit.advancement.Advancement;
 import org.bukkit.attribute.Attribute;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Firework;
-import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Wither;
 import org.bukkit.event.EventHandler;
@@ -32,19 +31,24 @@ import org.jetbrains.annotations.NotNull;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import xyz.baz9k.UHCGame.event.LastGroupStandingEvent;
+import xyz.baz9k.UHCGame.event.TeamEliminatedEvent;
 import xyz.baz9k.UHCGame.exception.UHCCheckFailException;
 import xyz.baz9k.UHCGame.exception.UHCException;
 import xyz.baz9k.UHCGame.util.*;
-import xyz.baz9k.UHCGame.util.drops.BlockDropTransformer;
-import xyz.baz9k.UHCGame.util.drops.LeafDropProducer;
+import xyz.baz9k.UHCGame.util.drops.DropRules;
 import xyz.baz9k.UHCGame.util.tag.BooleanTagType;
 
+import java.io.File;
 import java.time.*;
 import java.util.*;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 
 import com.destroystokyo.paper.MaterialTags;
@@ -66,26 +70,28 @@ public class GameManager implements Listener {
     private final HashMap<UUID, Integer> kills = new HashMap<>();
     
     private GameStage stage = GameStage.NOT_IN_GAME;
+    private StageTimeline timeline;
+    private DropRules dropRules = DropRules.EMPTY;
     private Kit kit = Kit.none();
 
     private Optional<Instant> startTime = Optional.empty();
-    private Optional<Instant> lastStageInstant = Optional.empty();
-
-    private static final TreeSet<TimedEvent> timedEvents = new TreeSet<>();
-    public record TimedEvent(Instant when, Runnable action) implements Comparable<TimedEvent> {
-
-        @Override
-        // according to TreeSet java docs, this violates the general contract of Set...
-        // but then says it's not a problem so...
-        public int compareTo(TimedEvent o) {
-            return this.when.compareTo(o.when);
-        }
-
-        public boolean cancel() {
-            return timedEvents.remove(this);
-        }
+    /**
+     * The tick (since the start of the game) the current stage ends at
+     */
+    private long stageEndTick = Long.MAX_VALUE;
+    /**
+     * True while players are being spread at the start of the game
+     */
+    private boolean starting = false;
+    /**
+     * Counts starts, so a start which was ended while players were being spread does not begin the game afterwards
+     */
+    private int startAttempt = 0;
 
-    }
+    /**
+     * Events scheduled relative to the start of the game, keyed by game tick
+     */
+    private final TimingWheel timedEvents = new TimingWheel();
     private boolean win = false;
 
     public GameManager(UHCGamePlugin plugin) {
@@ -103,11 +109,41 @@ public class GameManager implements Listener {
         recipes = plugin.getRecipes();
     }
 
+    private static final Key ELIMINATED = Key.of("eliminated");
+    private static final Key WIN = Key.of("win");
+
+    private static final Key SPREAD_START           = Key.of("debug.spreadplayers.start"),
+                             SPREAD_END             = Key.of("debug.spreadplayers.end"),
+                             START_CANCELLED        = Key.of("debug.start.cancelled"),
+                             GRACE_END              = Key.of("chat.grace.end"),
+                             FINAL_HEAL             = Key.of("chat.final_heal"),
+                             NOT_STARTED            = Key.of("err.not_started"),
+                             ALREADY_STARTED        = Key.of("err.already_started"),
+                             ARENA_FAILED           = Key.of("err.deathmatch.arena_failed"),
+                             RESPAWN_FAIL_SPECTATOR = Key.of("cmd.respawn.fail.spectator");
+
+    /**
+     * The debug messages of starting or ending the game
+     */
+    private record EventKeys(Key tryKey, Key forceKey, Key completeKey, Key failKey) {
+        static EventKeys of(String event) {
+            return new EventKeys(
+                Key.of("debug." + event + ".try"),
+                Key.of("debug." + event + ".force"),
+                Key.of("debug." + event + ".complete"),
+                Key.of("debug." + event + ".fail")
+            );
+        }
+    }
+    private static final EventKeys START_KEYS = EventKeys.of("start"),
+                                   END_KEYS   = EventKeys.of("end");
+
     private enum GameInitFailure {
-        TEAM_UNASSIGNED      (new Key("err.team.must_assigned")),
-        WORLDS_NOT_REGENED   (new Key("err.world.must_regened"), new Key("err.world.must_regened_short")),
-        GAME_NOT_STARTED     (new Key("err.not_started")       ),
-        GAME_ALREADY_STARTED (new Key("err.already_started")   );
+        TEAM_UNASSIGNED      (Key.of("err.team.must_assigned")),
+        WORLDS_NOT_REGENED   (Key.of("err.world.must_regened"), Key.of("err.world.must_regened_short")),
+        PREGEN_INCOMPLETE    (Key.of("err.world.must_pregen"), Key.of("err.world.must_pregen_short")),
+        GAME_NOT_STARTED     (Key.of("err.not_started")       ),
+        GAME_ALREADY_STARTED (Key.of("err.already_started")   );
 
         private final Key errKey;
         private final Key panelErrKey;
@@ -133,7 +169,7 @@ public class GameManager implements Listener {
         
         var fails = new ArrayList<GameInitFailure>();
 
-        if (hasUHCStarted()) fails.add(GameInitFailure.GAME_ALREADY_STARTED);
+        if (hasUHCStarted() || starting) fails.add(GameInitFailure.GAME_ALREADY_STARTED);
 
         for (Player p : Bukkit.getOnlinePlayers()) {
             if (teamManager.getPlayerState(p) == PlayerState.COMBATANT_UNASSIGNED) {
@@ -146,6 +182,10 @@ public class GameManager implements Listener {
         //     fails.add(GameInitFailure.WORLDS_NOT_REGENED);
         // }
 
+        if (plugin.configValues().requirePregen() && !plugin.getPregenManager().isComplete()) {
+            fails.add(GameInitFailure.PREGEN_INCOMPLETE);
+        }
+
         return Collections.unmodifiableList(fails);
     }
 
@@ -168,32 +208,50 @@ public class GameManager implements Listener {
             .toList();
     }
 
-    private void runEventWithChecks(String eventKey, Runnable event, Supplier<List<GameInitFailure>> checks, boolean skipChecks) throws UHCCheckFailException {
-        Key EVENT_TRY       = new Key("debug.%s.try", eventKey),
-            EVENT_FORCE_TRY = new Key("debug.%s.force", eventKey),
-            EVENT_COMPLETE  = new Key("debug.%s.complete", eventKey),
-            EVENT_FAIL      = new Key("debug.%s.fail", eventKey);
-        
+    /**
+     * Runs an event if its checks pass.
+     * <p>
+     * The event may finish later (starting the game finishes once players have been spread),
+     * so its success or failure is only reported (and the stage rolled back) once its future settles.
+     * @param keys Debug messages of the event
+     * @param event The event, which returns a future that completes on the main thread
+     * @param checks Checks that must pass to run the event
+     * @param skipChecks If true, checks are ignored.
+     */
+    private void runEventWithChecks(EventKeys keys, Supplier<CompletableFuture<Void>> event, Supplier<List<GameInitFailure>> checks, boolean skipChecks) throws UHCCheckFailException {
         var prevStage = stage;
 
-        Debug.printDebug(EVENT_TRY.trans());
+        Debug.printDebug(keys.tryKey().trans());
         if (!skipChecks) {
             var fails = checks.get();
             if (fails.size() != 0) {
                 throw fails.get(0).exception();
             }
         } else {
-            Debug.printDebug(EVENT_FORCE_TRY.trans());
+            Debug.printDebug(keys.forceKey().trans());
         }
 
+        CompletableFuture<Void> result;
         try {
-            event.run();
-            Debug.printDebug(EVENT_COMPLETE.trans());
+            result = event.get();
         } catch (Exception e) {
-            setStage(prevStage);
-            Debug.printDebug(EVENT_FAIL.trans());
-            Debug.printError(e);
+            result = CompletableFuture.failedFuture(e);
         }
+
+        result.whenComplete((v, err) -> {
+            if (err == null) {
+                Debug.printDebug(keys.completeKey().trans());
+                return;
+            }
+
+            Throwable cause = err instanceof CompletionException ce ? ce.getCause() : err;
+            Debug.printDebug(keys.failKey().trans());
+            // a cancelled event was stopped by another event, which owns the stage now
+            if (cause instanceof CancellationException) return;
+
+            setStage(prevStage);
+            Debug.printError(cause);
+        });
     }
     /**
      * Starts UHC.
@@ -206,7 +264,7 @@ public class GameManager implements Listener {
      * @param skipChecks If true, all checks are ignored.
      */
     public void startUHC(boolean skipChecks) throws UHCCheckFailException {
-        runEventWithChecks("start", this::_startUHC, this::checkStart, skipChecks);
+        runEventWithChecks(START_KEYS, this::_startUHC, this::checkStart, skipChecks);
     }
 
     /**
@@ -220,14 +278,19 @@ public class GameManager implements Listener {
      * @param skipChecks If true, started game checks are ignored.
      */
     public void endUHC(boolean skipChecks) throws UHCCheckFailException {
-        runEventWithChecks("end", this::_endUHC, this::checkEnd, skipChecks);
+        runEventWithChecks(END_KEYS, this::_endUHC, this::checkEnd, skipChecks);
     }
 
-    private void _startUHC() {
+    private CompletableFuture<Void> _startUHC() {
+        // the config can't be edited during the game, so this snapshot lasts the whole game
+        plugin.configValues().recompile();
+        dropRules = compileDropRules(plugin.configValues());
+        boolean wasPregenerating = plugin.getPregenManager().isRunning();
+        plugin.getPregenManager().stop();
         worldManager.initWorlds();
 
         // do spreadplayers
-        Debug.printDebug(new Key("debug.spreadplayers.start").trans());
+        Debug.printDebug(SPREAD_START.trans());
 
         //    | # Groups | Min   | Max  |
         //    |----------|-------|------|
@@ -257,49 +320,95 @@ public class GameManager implements Listener {
         // but the constant has been adjusted to give margin of error
         // (in case SP produces less points than average)
 
-        int sp = plugin.configValues().spreadPlayersMethod();
-        // 0 = by teams
-        // 1 = individually
-        double max = GameStage.WB_STILL.wbDiameter();
-        Location defaultLoc = worldManager.gameSpawn();
-        Location center = worldManager.getCenter();
-        var spreadPlayers = plugin.spreadPlayers();
-        switch (sp) {
-            case 0 -> {
-                double min = max / Math.sqrt(3 * teamManager.getNumSpreadGroups());
-                spreadPlayers.random(SpreadPlayersManager.BY_TEAMS(defaultLoc), center, max, min);
+        CompletableFuture<Void> spread;
+        try {
+            var sp = plugin.configValues().spreadPlayersMethod();
+            double max = plugin.configValues().timeline().first().wbDiameter();
+            Location defaultLoc = worldManager.gameSpawn();
+            Location center = worldManager.getCenter();
+            var spreadPlayers = plugin.spreadPlayers();
+            spread = switch (sp) {
+                case BY_TEAMS -> {
+                    double min = max / Math.sqrt(3 * teamManager.getNumSpreadGroups());
+                    yield spreadPlayers.random(SpreadPlayersManager.BY_TEAMS(defaultLoc), center, max, min);
+                }
+                case INDIVIDUALLY -> {
+                    double min = max / Math.sqrt(3 * teamManager.getCombatants().online().size());
+                    yield spreadPlayers.random(SpreadPlayersManager.BY_PLAYERS(defaultLoc), center, max, min);
+                }
+            };
+        } catch (RuntimeException e) {
+            spread = CompletableFuture.failedFuture(e);
+        }
+
+        // chunks are loaded and players are teleported asynchronously,
+        // the game begins once everyone is in place
+        int attempt = ++startAttempt;
+        starting = true;
+        return spread.handle((v, err) -> {
+            if (attempt != startAttempt) {
+                // the game was ended while players were being spread
+                Debug.printDebug(START_CANCELLED.trans());
+                abortStart(false);
+                throw new CancellationException();
             }
-            case 1 -> {
-                double min = max / Math.sqrt(3 * teamManager.getCombatants().online().size());
-                spreadPlayers.random(SpreadPlayersManager.BY_PLAYERS(defaultLoc), center, max, min);
-                
+            starting = false;
+
+            try {
+                if (err != null) throw err instanceof CompletionException ce ? ce : new CompletionException(err);
+
+                Debug.printDebug(SPREAD_END.trans());
+                beginGame();
+                return null;
+            } catch (RuntimeException e) {
+                abortStart(wasPregenerating);
+                throw e;
             }
+        });
+    }
+
+    /**
+     * Undoes a start which failed (or was ended) after players started being spread,
+     * sending everyone back to the lobby.
+     * @param resumePregen If true, pregeneration is resumed
+     */
+    private void abortStart(boolean resumePregen) {
+        endTick();
+        timedEvents.clear();
+        hudManager.cleanup();
+        bbManager.disable(Bukkit.getServer());
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            prepareToLobby(p, false);
         }
-        
-        Debug.printDebug(new Key("debug.spreadplayers.end").trans());
+        if (resumePregen) plugin.getPregenManager().start();
+    }
+
+    /**
+     * Second half of {@link #_startUHC}, after players have been spread.
+     */
+    private void beginGame() {
         // unload world
         plugin.getMVWorldManager().unloadWorld("lobby", true);
 
-        setStage(GameStage.nth(0));
-        startTime = lastStageInstant = Optional.of(Instant.now());
+        startTime = Optional.of(Instant.now());
+        timeline = plugin.configValues().timeline();
+        setStage(timeline.first());
         
         win = false;
         kills.clear();
         timedEvents.clear();
         // register event for when grace period ends
         plugin.configValues().gracePeriod().ifPresent(d -> {
-            Instant end = startTime.get().plus(d);
-            registerEvent(end, () -> {
+            registerEvent(d, () -> {
                 // grace period does its check via inGracePeriod, so nothing else needs to be done
-                GameStage.sendMessageAsBoxless(Bukkit.getServer(), new Key("chat.grace.end").trans());
+                GameStage.sendMessageAsBoxless(Bukkit.getServer(), GRACE_END.trans());
             });
         });
 
         // register event for when final heal hits
         plugin.configValues().finalHealPeriod().ifPresent(d -> {
-            Instant end = startTime.get().plus(d);
-            registerEvent(end, () -> {
-                GameStage.sendMessageAsBoxless(Bukkit.getServer(), new Key("chat.final_heal").trans());
+            registerEvent(d, () -> {
+                GameStage.sendMessageAsBoxless(Bukkit.getServer(), FINAL_HEAL.trans());
                 for (Player p : teamManager.getAliveCombatants().online()) {
                     p.setHealth(p.getAttribute(Attribute.GENERIC_MAX_HEALTH).getBaseValue());
                 }
@@ -307,6 +416,7 @@ public class GameManager implements Listener {
         });
         
 
+        hudManager.initPlayerHUDs(Bukkit.getOnlinePlayers());
         for (Player p : Bukkit.getOnlinePlayers()) {
             prepareToGame(p, true);
         }
@@ -315,7 +425,12 @@ public class GameManager implements Listener {
         startTick();
     }
 
-    private void _endUHC() {
+    private CompletableFuture<Void> _endUHC() {
+        // stops a start whose players are still being spread from beginning the game
+        if (starting) {
+            starting = false;
+            startAttempt++;
+        }
         setStage(GameStage.NOT_IN_GAME);
         for (Player p : Bukkit.getOnlinePlayers()) {
             prepareToLobby(p, true);
@@ -327,7 +442,7 @@ public class GameManager implements Listener {
         hudManager.cleanup();
         kills.clear();
         endTick();
-
+        return CompletableFuture.completedFuture(null);
     }
 
     public boolean hasUHCStarted() {
@@ -336,25 +451,25 @@ public class GameManager implements Listener {
 
     public void requireStarted() throws UHCException {
         if (!hasUHCStarted()) {
-            throw new UHCException(new Key("err.not_started"));
+            throw new UHCException(NOT_STARTED);
         }
     }
 
     public void requireNotStarted() throws UHCException {
         if (hasUHCStarted()) {
-            throw new UHCException(new Key("err.already_started"));
+            throw new UHCException(ALREADY_STARTED);
         }
     }
 
     public <X extends Throwable> void requireStarted(Class<X> exc) throws X {
         if (!hasUHCStarted()) {
-            throw new Key("err.not_started").transErr(exc);
+            throw NOT_STARTED.transErr(exc);
         }
     }
 
     public <X extends Throwable> void requireNotStarted(Class<X> exc) throws X {
         if (hasUHCStarted()) {
-            throw new Key("err.already_started").transErr(exc);
+            throw ALREADY_STARTED.transErr(exc);
         }
     }
 
@@ -362,42 +477,39 @@ public class GameManager implements Listener {
         tick = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
             if (!hasUHCStarted()) return;
     
+            long t0 = Profiler.start();
             bbManager.tick();
+            Profiler.stop(Profiler.Section.BOSSBAR_TICK, t0);
             
-            if (isStageComplete()) {
+            long now = elapsedTicks();
+            t0 = Profiler.start();
+            if (isStageComplete(now)) {
                 incrementStage();
             }
+            Profiler.stop(Profiler.Section.STAGE_CHECK, t0);
             
-            int dnCycle = plugin.configValues().dnCycle();
-            // 0: 05:00 per cycle
-            // 1: 10:00 per cycle
-            // 2: 20:00 per cycle
-            // 3: Always Day
-            // 4: Always Night
-            int timeIncr = switch (dnCycle) {
-                case 0 -> 4;
-                case 1 -> 2;
-                default -> 0;
-            };
+            int timeIncr = plugin.configValues().dnCycle().extraTicks();
             if (timeIncr != 0) {
                 World w = worldManager.getGameWorld(0);
                 w.setTime(w.getTime() + timeIncr);
             }
 
             // run thru all the events that have been registered and whose time have passed
-            if (!timedEvents.isEmpty()) {
-                TimedEvent e = timedEvents.first();
-                while (e.when().isBefore(Instant.now())) {
-                    timedEvents.pollFirst();
-                    e.action.run();
-                    e = timedEvents.first();
-                }
-            }
+            t0 = Profiler.start();
+            timedEvents.advanceTo(now);
+            Profiler.stop(Profiler.Section.TIMED_EVENTS, t0);
 
+            t0 = Profiler.start();
             for (Player p : Bukkit.getOnlinePlayers()) {
                 hudManager.updateElapsedTimeHUD(p);
                 hudManager.updateWBHUD(p);
             }
+            Profiler.stop(Profiler.Section.PLAYER_HUD, t0);
+
+            // apply the position & health changes collected from events
+            if (Bukkit.getCurrentTick() % plugin.configValues().hudFlushInterval() == 0) {
+                hudManager.flushDirty();
+            }
         }, 0L, 1L);
     }
 
@@ -442,6 +554,14 @@ public class GameManager implements Listener {
         );
     }
 
+    /**
+     * @return the number of ticks since the game has started (0 if it hasn't).
+     */
+    private long elapsedTicks() {
+        return startTime.map(start -> toTicks(Duration.between(start, Instant.now())))
+            .orElse(0L);
+    }
+
     /**
      * @return the current stage of the game.
      */
@@ -449,6 +569,14 @@ public class GameManager implements Listener {
         return stage;
     }
 
+    /**
+     * @return the stages of the current game, or the stages the next game will have if there's no game running.
+     */
+    public StageTimeline getTimeline() {
+        if (hasUHCStarted() && timeline != null) return timeline;
+        return plugin.configValues().timeline();
+    }
+
     public void incrementStage() {
         setStage(stage.next());
     }
@@ -461,13 +589,15 @@ public class GameManager implements Listener {
 
     private void updateStage() {
         if (!hasUHCStarted()) return;
-        lastStageInstant = Optional.of(Instant.now());
+        long start = elapsedTicks();
+        long dur = stage.durationTicks();
+        stageEndTick = dur > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + dur;
         bbManager.updateBossbarStage();
 
         stage.sendMessage();
         stage.applyWBSize(worldManager.getGameWorlds());
 
-        if (stage == GameStage.WB_STOP) {
+        if (stage.purgesWorld()) {
             worldManager.forEachWorld((w, wm) -> {
                 wm.purgeWorld(w);
                 w.setGameRule(GameRule.DO_MOB_SPAWNING, false);
@@ -475,44 +605,69 @@ public class GameManager implements Listener {
         }
 
         // deathmatch
-        if (isDeathmatch()) {
-            World w = worldManager.getMainWorld();
-
-            int radius = (int) GameStage.DEATHMATCH.wbRadius();
-            for (int x = -radius; x <= radius; x++) {
-                for (int z = -radius; z <= radius; z++) {
-                    w.getBlockAt(x, w.getMaxHeight() - 1, z).setType(Material.AIR);
-                    w.getBlockAt(x, w.getMaxHeight() - 2, z).setType(Material.BARRIER);
-                }
-            }
-
-            for (int x = -radius; x <= radius; x++) {
-                w.getBlockAt(x, w.getMaxHeight() - 1, -radius - 1).setType(Material.BARRIER);
-                w.getBlockAt(x, w.getMaxHeight() - 1, radius + 1).setType(Material.BARRIER);
-            }
+        if (isDeathmatch()) buildArena(1);
 
-            for (int z = -radius; z <= radius; z++) {
-                w.getBlockAt(-radius - 1, w.getMaxHeight() - 1, z).setType(Material.BARRIER);
-                w.getBlockAt(radius + 1, w.getMaxHeight() - 1, z).setType(Material.BARRIER);
-            }
+    }
 
-            for (Player p : teamManager.getCombatants().online()) {
-                p.addPotionEffects(Arrays.asList(
-                    PotType.RESISTANCE.createEffect(10 * 20, 10),
-                    PotType.SLOWNESS.createEffect(10 * 20, 10),
-                    PotType.JUMP_BOOST.createEffect(10 * 20, 128),
-                    PotType.BLINDNESS.createEffect(10 * 20, 10)
-                ));
-            }
-            for (Player p : Bukkit.getOnlinePlayers()) {
-                p.teleport(worldManager.getHighCenter());
-            }
+    private static final int ARENA_ATTEMPTS = 3;
 
-            double rad = GameStage.DEATHMATCH.wbRadius() - 1;
-            plugin.spreadPlayers().rootsOfUnity(SpreadPlayersManager.BY_TEAMS(worldManager.getHighCenter()), worldManager.getCenter(), rad);
+    /**
+     * Builds the deathmatch arena, then moves everyone onto it.
+     * If the arena fails to build, it is rebuilt (up to {@link #ARENA_ATTEMPTS} times).
+     * If it never builds, players are left where they are instead of being moved onto a partial arena.
+     * @param attempt the attempt number (starting at 1)
+     */
+    private void buildArena(int attempt) {
+        World w = worldManager.getMainWorld();
+
+        int radius = (int) stage.wbRadius();
+        int top = w.getMaxHeight() - 1;
+        plugin.getBlockEditManager().batch(w)
+            // roof
+            .fill(-radius, top, -radius, radius, top, radius, Material.AIR)
+            .fill(-radius, top - 1, -radius, radius, top - 1, radius, Material.BARRIER)
+            // walls
+            .fill(-radius, top, -radius - 1, radius, top, -radius - 1, Material.BARRIER)
+            .fill(-radius, top,  radius + 1, radius, top,  radius + 1, Material.BARRIER)
+            .fill(-radius - 1, top, -radius,  -radius - 1, top, radius, Material.BARRIER)
+            .fill( radius + 1, top, -radius,   radius + 1, top, radius, Material.BARRIER)
+            .submit()
+            .whenComplete((v, err) -> {
+                if (err == null) {
+                    startDeathmatch();
+                } else if (attempt < ARENA_ATTEMPTS) {
+                    // the batch has settled (every chunk was edited or failed), so nothing from it is still being applied.
+                    // each failed chunk was already logged by the batch
+                    Debug.printDebug(String.format("Deathmatch arena failed to build (attempt %d of %d), retrying: %s", attempt, ARENA_ATTEMPTS, err));
+                    if (isDeathmatch()) buildArena(attempt + 1);
+                } else {
+                    UHCException e = ARENA_FAILED.transErr(UHCException.class, attempt);
+                    e.initCause(err);
+                    Debug.printError(e);
+                }
+            });
+    }
 
+    /**
+     * Moves everyone onto the deathmatch arena. Called once the arena is built.
+     */
+    private void startDeathmatch() {
+        if (!isDeathmatch()) return;
+
+        for (Player p : teamManager.getCombatants().online()) {
+            p.addPotionEffects(Arrays.asList(
+                PotType.RESISTANCE.createEffect(10 * 20, 10),
+                PotType.SLOWNESS.createEffect(10 * 20, 10),
+                PotType.JUMP_BOOST.createEffect(10 * 20, 128),
+                PotType.BLINDNESS.createEffect(10 * 20, 10)
+            ));
+        }
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            p.teleport(worldManager.getHighCenter());
         }
 
+        double rad = stage.wbRadius() - 1;
+        plugin.spreadPlayers().rootsOfUnity(SpreadPlayersManager.BY_TEAMS(worldManager.getHighCenter()), worldManager.getCenter(), rad);
     }
 
     /**
@@ -530,29 +685,32 @@ public class GameManager implements Listener {
         requireStarted(IllegalStateException.class);
         Duration stageDur = getStageDuration();
         if (isDeathmatch()) return Optional.of(stageDur); // if deathmatch, just return ∞
-        return lastStageInstant.map(instant -> 
-            Duration.between(Instant.now(), instant.plus(stageDur))
-        );
+        if (startTime.isEmpty()) return Optional.empty();
+        return Optional.of(Duration.ofMillis((stageEndTick - elapsedTicks()) * 50));
     }
 
     /**
      * @return if deathmatch (last stage) has started.
      */
     public boolean isDeathmatch() {
-        return stage == GameStage.DEATHMATCH;
+        return stage.isLast();
     }
 
     /**
      * @return if the stage has completed and needs to be incremented.
      */
     public boolean isStageComplete() {
+        return isStageComplete(elapsedTicks());
+    }
+
+    /**
+     * @param now ticks since the start of the game
+     * @return if the stage has completed and needs to be incremented.
+     */
+    private boolean isStageComplete(long now) {
         if (win) return false;
         if (isDeathmatch()) return false;
-        return lastStageInstant.map(instant -> {
-                var end = instant.plus(stage.duration());
-                return !end.isAfter(Instant.now());
-            })
-            .orElse(false);
+        return startTime.isPresent() && now >= stageEndTick;
     }
 
     /**
@@ -584,12 +742,25 @@ public class GameManager implements Listener {
         this.kit = kit;
     }
 
-    public TimedEvent registerEvent(Instant when, Runnable action) {
-        TimedEvent e = new TimedEvent(when, action);
-        boolean succ = timedEvents.add(e);
+    /**
+     * Registers an action to run once some amount of time has passed in the game.
+     * @param after Time after the start of the game to run the action
+     * @param action Action to run
+     * @return the scheduled task (can be cancelled)
+     */
+    public TimingWheel.Task registerEvent(Duration after, Runnable action) {
+        return timedEvents.scheduleAt(toTicks(after), action);
+    }
 
-        if (succ) return e;
-        throw new IllegalArgumentException("uh oh you bozo don't copy your arguments");
+    /**
+     * Registers an action to run at a specified time in the game.
+     * @param when Time to run the action
+     * @param action Action to run
+     * @return the scheduled task (can be cancelled)
+     */
+    public TimingWheel.Task registerEvent(Instant when, Runnable action) {
+        requireStarted(IllegalStateException.class);
+        return registerEvent(Duration.between(startTime.orElseThrow(), when), action);
     }
 
     public boolean inGracePeriod() {
@@ -605,7 +776,7 @@ public class GameManager implements Listener {
     public void respawnPlayer(Player p, Location loc) throws UHCException {
         TeamManager tm = plugin.getTeamManager();
         if (tm.isSpectator(p)) {
-            throw new UHCException(new Key("cmd.respawn.fail.spectator"), p.getName());
+            throw new UHCException(RESPAWN_FAIL_SPECTATOR, p.getName());
         }
 
         p.teleport(loc);
@@ -626,19 +797,29 @@ public class GameManager implements Listener {
                .append(c);
     }
 
-    private void trySendWinMessage() {
-        // check if qualify for win message
-        if (win) return; // if win message already triggered, don't trigger it again
+    @EventHandler
+    public void onTeamEliminated(TeamEliminatedEvent e) {
+        if (!hasUHCStarted()) return;
+        int t = e.team();
 
-        var aliveGroups = teamManager.getAliveGroups();
-        if (aliveGroups.length != 1) return; // only 1 group
+        Component teamElimMsg = ELIMINATED.trans(TeamDisplay.getName(PlayerState.COMBATANT_ALIVE, t))
+            .style(noDeco(NamedTextColor.WHITE));
+        teamElimMsg = includeGameTimestamp(teamElimMsg);
+        // this msg should be displayed after player death
+        delayedMessage(teamElimMsg, 1);
+    }
+
+    @EventHandler
+    public void onLastGroupStanding(LastGroupStandingEvent e) {
+        if (!hasUHCStarted()) return;
+        if (win) return; // if win message already triggered, don't trigger it again
 
         win = true;
-        var winner = aliveGroups[0];
+        var winner = e.group();
         Component winName = winner.getName();
         var winBukkitClr = TeamDisplay.getBukkitColor(PlayerState.COMBATANT_ALIVE, winner.team());
 
-        Component winMsg = new Key("win").trans(winName)
+        Component winMsg = WIN.trans(winName)
             .style(noDeco(NamedTextColor.WHITE));
         winMsg = includeGameTimestamp(winMsg);
 
@@ -709,6 +890,7 @@ public class GameManager implements Listener {
     @EventHandler
     public void onPlayerDeath(PlayerDeathEvent e) {
         if (!hasUHCStarted()) return;
+        long t0 = Profiler.start();
         Player dead = e.getEntity();
         
         e.deathMessage(includeGameTimestamp(e.deathMessage()));
@@ -721,20 +903,8 @@ public class GameManager implements Listener {
 
         dead.setGameMode(GameMode.SPECTATOR);
         if (teamManager.getPlayerState(dead) == PlayerState.COMBATANT_ALIVE) {
+            // team elimination and win are handled by onTeamEliminated and onLastGroupStanding
             teamManager.setCombatantAliveStatus(dead, false);
-
-            // check team death
-            int t = teamManager.getTeam(dead);
-            if (teamManager.isTeamEliminated(t)) {
-                Component teamElimMsg = new Key("eliminated").trans(TeamDisplay.getName(PlayerState.COMBATANT_ALIVE, t))
-                    .style(noDeco(NamedTextColor.WHITE));
-                teamElimMsg = includeGameTimestamp(teamElimMsg);
-                // this msg should be displayed after player death
-                delayedMessage(teamElimMsg, 1);
-            }
-
-            // check win condition
-            trySendWinMessage();
         }
         
         // set bed spawn
@@ -752,6 +922,7 @@ public class GameManager implements Listener {
                 hudManager.updateKillsHUD(killer);
             }
         }
+        Profiler.stop(Profiler.Section.ON_DEATH, t0);
     }
 
     @EventHandler
@@ -796,72 +967,56 @@ public class GameManager implements Listener {
         }
     }
 
-    private static final BlockDropTransformer AUTO_SMELT_TRANSFORMER = new BlockDropTransformer()
-        .add(Tag.IRON_ORES,   Material.RAW_IRON,   Material.IRON_INGOT)
-        .add(Tag.GOLD_ORES,   Material.RAW_GOLD,   Material.GOLD_INGOT)
-        .add(Tag.COPPER_ORES, Material.RAW_COPPER, Material.COPPER_INGOT);
-
-    private static final BlockDropTransformer GRAVEL_TRANSFORMER = new BlockDropTransformer()
-        .add(Material.GRAVEL, Material.GRAVEL, Material.FLINT);
-
-    private static final Map<Material, Material> GORDON_RAMSEYS_RECIPE_BOOK = Map.ofEntries(
-        Map.entry(Material.BEEF,      Material.COOKED_BEEF),
-        Map.entry(Material.CHICKEN,   Material.COOKED_CHICKEN),
-        // Map.entry(Material.COD,    Material.COOKED_COD), // i see a universe where someone wants to tame a cat
-        Map.entry(Material.MUTTON,    Material.COOKED_MUTTON),
-        Map.entry(Material.PORKCHOP,  Material.COOKED_PORKCHOP),
-        Map.entry(Material.RABBIT,    Material.COOKED_RABBIT)
-        // Map.entry(Material.SALMON, Material.COOKED_SALMON)
-    );
+    /**
+     * Compiles the drop rules in drops.yml (in the plugin's data folder) with the current config.
+     * @param cfg config values
+     * @return the rules
+     */
+    private DropRules compileDropRules(ConfigValues cfg) {
+        File f = new File(plugin.getDataFolder(), "drops.yml");
+        if (!f.exists()) plugin.saveResource("drops.yml", false);
+        YamlConfiguration yml = YamlConfiguration.loadConfiguration(f);
+
+        return DropRules.compile(yml,
+            path -> Boolean.TRUE.equals(cfg.get(path)),
+            Map.of("apple_drop_rate", (double) cfg.appleDropRate())
+        );
+    }
 
     @EventHandler
     public void onBlockDrop(BlockDropItemEvent e) {
         if (!hasUHCStarted()) return;
-        var cfg = plugin.configValues();
+        long t0 = Profiler.start();
 
         Material blockMaterial = e.getBlockState().getType();
-        List<Item> items = e.getItems();
-
-        if (cfg.autoSmelt()) {
-            for (Item it : items) {
-                AUTO_SMELT_TRANSFORMER.transform(blockMaterial, it);
-            }
+        if (dropRules.hasBreakRules(blockMaterial)) {
+            ItemStack tool = e.getPlayer().getInventory().getItemInMainHand();
+            dropRules.applyBreak(blockMaterial, e.getItems(), tool, e.getBlock());
         }
-        if (cfg.alwaysFlint()) {
-            for (Item it : items) {
-                GRAVEL_TRANSFORMER.transform(blockMaterial, it);
-            }
-        }
-
-        new LeafDropProducer(e, cfg).addDrops();
+        Profiler.stop(Profiler.Section.ON_BLOCK_DROP, t0);
     }
 
     @EventHandler
     public void onMobDrop(EntityDropItemEvent e) {
         if (!hasUHCStarted()) return;
-        var cfg = plugin.configValues();
-
-        if (cfg.autoCook()) {
-            ItemStack stack = e.getItemDrop().getItemStack();
-            Material m = stack.getType();
-    
-            if (GORDON_RAMSEYS_RECIPE_BOOK.containsKey(m)) {
-                stack.setType(GORDON_RAMSEYS_RECIPE_BOOK.get(m));
-            }
-        }
+        long t0 = Profiler.start();
+        dropRules.applyMobDrop(e.getItemDrop().getItemStack());
+        Profiler.stop(Profiler.Section.ON_MOB_DROP, t0);
     }
 
     @EventHandler
     public void onLeafDecay(LeavesDecayEvent e) {
         if (!hasUHCStarted()) return;
+        long t0 = Profiler.start();
 
-        var cfg = plugin.configValues();
-        new LeafDropProducer(e, cfg).addDrops();
+        dropRules.applyDecay(e.getBlock());
+        Profiler.stop(Profiler.Section.ON_LEAF_DECAY, t0);
     }
 
     @EventHandler
     public void onCraft(CraftItemEvent e) {
         if (!hasUHCStarted()) return;
+        long t0 = Profiler.start();
         var cfg = plugin.configValues();
         var hastyBoys = cfg.hastyBoys();
         var luckyBoys = cfg.luckyBoys();
@@ -887,6 +1042,7 @@ public class GameManager implements Listener {
             e.setCurrentItem(new ItemStack(Material.AIR));
             e.getWhoClicked().sendMessage(Component.text("This recipe is disabled!"));
         }
+        Profiler.stop(Profiler.Section.ON_CRAFT, t0);
     }
 
     @EventHandler
@@ -908,7 +1064,8 @@ public class GameManager implements Listener {
 
     private void prepareToGame(Player p, boolean onGameStart) {
         bbManager.enable(p);
-        hudManager.initPlayerHUD(p);
+        // on game start, every player's HUD was already initialized together
+        if (!onGameStart) hudManager.initPlayerHUD(p);
         
         recipes.discoverFor(p);
 
@@ -950,6 +1107,7 @@ public class GameManager implements Listener {
                 }
 
                 p.getAttribute(Attribute.GENERIC_MOVEMENT_SPEED).setBaseValue(0.1 * mvSpeed); // 0.1 is default value
+                hudManager.dispatchMaxHealthUpdate(p);
                 
                 resetStatuses(p);
                 kit.apply(p);
@@ -6,9 +6,12 @@ import static net.kyori.adventure.text.format.TextDecoration.*;
 import org.bukkit.World;
 import org.bukkit.attribute.Attribute;
 import org.bukkit.entity.Damageable;
+import xyz.baz9k.UHCGame.ConfigSnapshot.HideTeams;
 import xyz.baz9k.UHCGame.event.PlayerStateChangeEvent;
 import xyz.baz9k.UHCGame.util.ColorGradient;
 import xyz.baz9k.UHCGame.util.Point2D;
+import xyz.baz9k.UHCGame.util.Profiler;
+import xyz.baz9k.UHCGame.util.SpatialGrid;
 import xyz.baz9k.UHCGame.util.TeamDisplay;
 import xyz.baz9k.UHCGame.util.tag.BooleanTagType;
 
@@ -17,6 +20,7 @@ import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityEvent;
@@ -32,12 +36,76 @@ import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
 
 import java.awt.Color;
 import java.util.*;
+import java.util.function.Predicate;
 
 public class HUDManager implements Listener {
     private final GameManager gameManager;
     private final TeamManager teamManager;
     private final UHCGamePlugin plugin;
 
+    /**
+     * The last content sent for each HUD line, used to skip updates that would not change anything.
+     * The lines are only valid for the scoreboard they were sent on.
+     */
+    private record RenderedHUD(Scoreboard board, Map<String, Component> lines) { }
+    private final Map<UUID, RenderedHUD> renderedHUDs = new HashMap<>();
+
+    /**
+     * Players whose position or health changed since the last {@link #flushDirty}.
+     * Events only mark players here, so that each affected HUD is recomputed at most once per flush.
+     */
+    private final Set<UUID> movedPlayers = new LinkedHashSet<>();
+    private final Set<UUID> relocatedPlayers = new LinkedHashSet<>();
+    private final Set<UUID> healthChangedPlayers = new LinkedHashSet<>();
+    /**
+     * Players who turned (or moved) within their move key, such that an arrow on their teammate HUD changed
+     */
+    private final Set<UUID> turnedPlayers = new LinkedHashSet<>();
+
+    /**
+     * The parts of a player's location that the HUD shows.
+     * A move only causes HUD work if one of these changes.
+     * @param x Block X
+     * @param y Block Y
+     * @param z Block Z
+     * @param yawSector Which of perf.move_yaw_sectors sectors the player is facing
+     * @param bucketX Block X divided by perf.move_distance_bucket
+     * @param bucketZ Block Z divided by perf.move_distance_bucket
+     */
+    private record MoveKey(World world, int x, int y, int z, int yawSector, int bucketX, int bucketZ) {
+        /**
+         * @param other Previous key
+         * @return if the player moved far enough that other players' teammate HUDs should be updated
+         */
+        boolean relocatedFrom(MoveKey other) {
+            return other == null 
+                || world != other.world 
+                || bucketX != other.bucketX 
+                || bucketZ != other.bucketZ;
+        }
+    }
+    private final Map<UUID, MoveKey> lastMoves = new HashMap<>();
+
+    /**
+     * Players whose scoreboards were created at game start and do not have heart scores yet.
+     * These are filled in a few boards at a time in {@link #flushDirty}, so that game start does not set every combatant's score on every board in one tick.
+     */
+    private final Deque<UUID> unseededBoards = new ArrayDeque<>();
+    /**
+     * Max number of heart scores set per flush while seeding boards
+     */
+    private static final int HEART_SEEDS_PER_FLUSH = 1000;
+
+    /**
+     * Side length of the cells of {@link #combatantPositions}, in blocks
+     */
+    private static final double PROXIMITY_CELL_SIZE = 32;
+    /**
+     * Positions of every combatant in each world, rebuilt at most once per tick (see {@link #combatantPositions()})
+     */
+    private final Map<World, SpatialGrid<Player>> combatantGrids = new HashMap<>();
+    private int combatantGridsTick = -1;
+
     public HUDManager(UHCGamePlugin plugin) {
         this.plugin = plugin;
         this.gameManager = plugin.getGameManager();
@@ -45,6 +113,21 @@ public class HUDManager implements Listener {
         cleanup(); // remove any extra uhc prefix teams in case
     }
 
+    // HUD keys, resolved once
+    private static final Key NEG_X = Key.of("hud.neg_x"),
+                             POS_X = Key.of("hud.pos_x"),
+                             NEG_Z = Key.of("hud.neg_z"),
+                             POS_Z = Key.of("hud.pos_z"),
+                             POSITION = Key.of("hud.position"),
+                             ROTATION = Key.of("hud.rotation"),
+                             GAME_TIME = Key.of("hud.gametime"),
+                             WB_STATIONARY = Key.of("hud.wbradius.stationary"),
+                             WB_TRAVELING = Key.of("hud.wbradius.traveling"),
+                             COMB_COUNT = Key.of("hud.combcount"),
+                             TEAM_COUNT = Key.of("hud.teamcount"),
+                             KILL_COUNT = Key.of("hud.killcount"),
+                             MUST_FIT = Key.of("err.hud.must_fit");
+
     private static String createEmptyName(char c){
         return "\u00A7" + c;
     }
@@ -65,66 +148,242 @@ public class HUDManager implements Listener {
         return d.getHealth() + d.getAbsorptionAmount();
     }
 
-    private @NotNull Component formatTeammate(@NotNull Player you, @NotNull Player teammate) {
-        TextComponent.Builder s = Component.text();
+    /**
+     * @param p Player
+     * @return the player's max health
+     */
+    private double getMaxHealth(Player p) {
+        return p.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue();
+    }
 
-        double teammateHP = getTotalHealth(teammate);
-        double teammateMaxHP = teammate.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue();
+    /**
+     * Number of buckets health / max health is split into when choosing a teammate's health color
+     */
+    private static final int HEALTH_BUCKETS = 256;
+    /**
+     * Color of each health bucket, from no health (0) to full health ({@link #HEALTH_BUCKETS})
+     */
+    private static final TextColor[] HEALTH_COLORS = new TextColor[HEALTH_BUCKETS + 1];
+    private static final TextColor OVER_HEAL = TextColor.color(171, 85, 232);
+    static {
         Color FULL_HP = new Color(87, 232, 107);
         Color HALF_HP = new Color(254, 254, 105);
         Color NO_HP = new Color(232, 85, 85);
-        Color OVER_HEAL = new Color(171, 85, 232);
-        Color gradient;
 
-        if (teammateHP > teammateMaxHP) {
-            gradient = OVER_HEAL;
-        } else {
-            gradient = ColorGradient.multiColorGradient(teammateHP/teammateMaxHP, NO_HP, HALF_HP, FULL_HP);
+        for (int i = 0; i <= HEALTH_BUCKETS; i++) {
+            Color gradient = ColorGradient.multiColorGradient((double) i / HEALTH_BUCKETS, NO_HP, HALF_HP, FULL_HP);
+            HEALTH_COLORS[i] = TextColor.color(gradient.getRGB());
         }
-        TextColor tcGradient = TextColor.color(gradient.getRGB());
+    }
+
+    /**
+     * @return the health bucket (or -1 if overhealed)
+     */
+    private static int healthBucket(double hp, double maxHP) {
+        if (hp > maxHP) return -1;
+        return (int) Math.round(clamp(0, hp / maxHP, 1) * HEALTH_BUCKETS);
+    }
+
+    /**
+     * Arrows pointing toward a teammate, by 45 degree bin of the angle relative to where you're facing (counterclockwise from ahead)
+     */
+    private static final String[] ARROWS = { "↑", "↖", "←", "↙", "↓", "↘", "→", "↗" };
+    /**
+     * Arrow index used when there is no arrow (teammate is in a different world)
+     */
+    private static final int NO_ARROW = ARROWS.length;
+
+    /**
+     * Number of steps the yaw is rounded to when finding an arrow (0.1 degrees each)
+     */
+    private static final int YAW_STEPS = 3600;
+    /**
+     * sin and cos of each yaw step, so that finding an arrow does not need trig functions
+     */
+    private static final double[] YAW_SIN = new double[YAW_STEPS],
+                                  YAW_COS = new double[YAW_STEPS];
+    static {
+        for (int i = 0; i < YAW_STEPS; i++) {
+            double rad = Math.toRadians(i * 360.0 / YAW_STEPS);
+            YAW_SIN[i] = Math.sin(rad);
+            YAW_COS[i] = Math.cos(rad);
+        }
+    }
+    private static final double TAN_22_5 = Math.sqrt(2) - 1;
+    /**
+     * Bins of the diagonal directions, by [x > 0][y > 0]
+     */
+    private static final int[][] DIAGONAL_BINS = { { 5, 3 }, { 7, 1 } };
+
+    // reused so that formatting teammates does not allocate Locations
+    private final Location youLoc = new Location(null, 0, 0, 0);
+    private final Location teammateLoc = new Location(null, 0, 0, 0);
+
+    /**
+     * @return the index in {@link #ARROWS} of the arrow pointing from you to your teammate
+     */
+    private int arrowIndex(@NotNull Player you, @NotNull Player teammate) {
+        you.getLocation(youLoc);
+        return arrowIndex(youLoc, teammate);
+    }
+
+    /**
+     * @param from Your location
+     * @return the index in {@link #ARROWS} of the arrow pointing from the location to your teammate
+     */
+    private int arrowIndex(@NotNull Location from, @NotNull Player teammate) {
+        teammate.getLocation(teammateLoc);
+        if (from.getWorld() != teammateLoc.getWorld()) return NO_ARROW;
+
+        double dx = from.getX() - teammateLoc.getX();
+        double dz = from.getZ() - teammateLoc.getZ();
+
+        // rotate the offset into your view (ahead is +x), then find its 45 degree bin by comparing the components
+        int yawStep = (int) Math.round(mod(from.getYaw(), 360) * YAW_STEPS / 360) % YAW_STEPS;
+        double cos = -YAW_SIN[yawStep],
+               sin =  YAW_COS[yawStep];
+        double x = cos * dx + sin * dz,
+               y = sin * dx - cos * dz;
+        double ax = Math.abs(x), 
+               ay = Math.abs(y);
+
+        int bin;
+        if (ay <= TAN_22_5 * ax) bin = x > 0 ? 0 : 4;
+        else if (ax <= TAN_22_5 * ay) bin = y > 0 ? 2 : 6;
+        else bin = DIAGONAL_BINS[x > 0 ? 1 : 0][y > 0 ? 1 : 0];
+
+        // bin 0 points away from the teammate
+        return (bin + ARROWS.length / 2) % ARROWS.length;
+    }
+
+    /**
+     * The rendered lines of one teammate, reused until anything shown about the teammate changes.
+     * There is one line per arrow (and no arrow), each with and without the spectator prefix.
+     */
+    private static final class TeammateLines {
+        /**
+         * The teammate's max health, read from their attribute when this is created and when it changes (see {@link #dispatchMaxHealthUpdate})
+         */
+        private double maxHP;
+        private String name;
+        private PlayerState state;
+        private int team;
+        private int hp;
+        private int colorBucket;
+        private boolean online;
+        private final Component[] lines = new Component[2 * (NO_ARROW + 1)];
+
+        TeammateLines(double maxHP) {
+            this.maxHP = maxHP;
+        }
+
+        /**
+         * Clears the rendered lines if the teammate's shown properties changed.
+         */
+        void update(String name, PlayerState state, int team, int hp, int colorBucket, boolean online) {
+            if (name.equals(this.name) && state == this.state && team == this.team 
+                && hp == this.hp && colorBucket == this.colorBucket && online == this.online) return;
+
+            this.name = name;
+            this.state = state;
+            this.team = team;
+            this.hp = hp;
+            this.colorBucket = colorBucket;
+            this.online = online;
+            Arrays.fill(lines, null);
+        }
+    }
+    private final Map<UUID, TeammateLines> teammateLines = new HashMap<>();
+
+    /**
+     * The teammates on a player's teammate HUD and the arrows shown for them,
+     * so that moves which do not change a move key (or relocate a teammate) can still be checked against the arrows.
+     */
+    private static final class ShownArrows {
+        private final Player[] teammates = new Player[5];
+        private final int[] arrows = new int[5];
+        private int size;
+    }
+    private final Map<UUID, ShownArrows> shownArrows = new HashMap<>();
+
+    /**
+     * @param p Player
+     * @param to Player's new location
+     * @return if an arrow shown on the player's teammate HUD would point differently from the new location
+     */
+    private boolean arrowsChanged(@NotNull Player p, @NotNull Location to) {
+        ShownArrows shown = shownArrows.get(p.getUniqueId());
+        if (shown == null) return false;
+
+        for (int i = 0; i < shown.size; i++) {
+            if (shown.arrows[i] == NO_ARROW) continue;
+            if (arrowIndex(to, shown.teammates[i]) != shown.arrows[i]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param viewer Player whose teammate HUD is checked
+     * @param teammate Player who moved
+     * @return if the arrow shown for the teammate on the viewer's teammate HUD would point differently now
+     */
+    private boolean arrowChanged(@NotNull Player viewer, @NotNull Player teammate) {
+        ShownArrows shown = shownArrows.get(viewer.getUniqueId());
+        if (shown == null) return false;
+
+        for (int i = 0; i < shown.size; i++) {
+            if (shown.teammates[i].equals(teammate)) return arrowIndex(viewer, teammate) != shown.arrows[i];
+        }
+        return false;
+    }
+
+    private @NotNull Component formatTeammate(@NotNull Player you, @NotNull Player teammate, int arrow) {
+        double teammateHP = getTotalHealth(teammate);
+        PlayerState state = teamManager.getPlayerState(teammate);
+        int team = teamManager.getTeam(teammate);
+
+        TeammateLines cached = teammateLines.get(teammate.getUniqueId());
+        if (cached == null) {
+            cached = new TeammateLines(getMaxHealth(teammate));
+            teammateLines.put(teammate.getUniqueId(), cached);
+        }
+        cached.update(teammate.getName(), state, team, 
+            (int) Math.ceil(teammateHP), healthBucket(teammateHP, cached.maxHP), teammate.isOnline());
+
+        boolean prefixed = teamManager.isSpectator(you);
+        int slot = 2 * arrow + (prefixed ? 1 : 0);
+
+        Component line = cached.lines[slot];
+        if (line == null) line = cached.lines[slot] = renderTeammate(cached, prefixed, arrow);
+        return line;
+    }
+
+    private @NotNull Component renderTeammate(@NotNull TeammateLines tm, boolean prefixed, int arrow) {
+        TextComponent.Builder s = Component.text();
 
         // prefix if spectator
-        if (teamManager.isSpectator(you)) {
-            PlayerState state = teamManager.getPlayerState(teammate);
-            int team = teamManager.getTeam(teammate);
-            s.append(TeamDisplay.getPrefixWithSpace(state, team));
+        if (prefixed) {
+            s.append(TeamDisplay.getPrefixWithSpace(tm.state, tm.team));
         }
 
         // name and health
-        if (teamManager.getPlayerState(teammate) == PlayerState.COMBATANT_DEAD) {
-            s.append(Component.text(teammate.getName(), NamedTextColor.GRAY, STRIKETHROUGH))
+        if (tm.state == PlayerState.COMBATANT_DEAD) {
+            s.append(Component.text(tm.name, NamedTextColor.GRAY, STRIKETHROUGH))
              .append(Component.space())
              .append(Component.text("0♥", NamedTextColor.GRAY, STRIKETHROUGH));
             return s.asComponent();
-        } else {
-            s.append(Component.text(teammate.getName(), tcGradient))
-             .append(Component.space())
-             .append(Component.text((int) Math.ceil(teammateHP) + "♥", tcGradient))
-             .append(Component.space());
         }
+
+        TextColor tcGradient = tm.colorBucket < 0 ? OVER_HEAL : HEALTH_COLORS[tm.colorBucket];
+        s.append(Component.text(tm.name, tcGradient))
+         .append(Component.space())
+         .append(Component.text(tm.hp + "♥", tcGradient))
+         .append(Component.space());
+
         // direction
-        Location youLoc = you.getLocation();
-        Location teammateLoc = teammate.getLocation();
-        if (youLoc.getWorld() == teammateLoc.getWorld()) {
-            double dx = youLoc.getX() - teammateLoc.getX();
-            double dz = youLoc.getZ() - teammateLoc.getZ();
-    
-            double angle = Math.toDegrees(Math.atan2(dz, dx)); // angle btwn you & teammate
-            double yeYaw = youLoc.getYaw();
-    
-            double relAngle = mod(yeYaw - angle + 90, 360) - 180;
-            String arrow;
-            if (112.5 < relAngle && relAngle < 157.5) arrow = "↙";
-            else if (67.5 < relAngle && relAngle < 112.5) arrow = "←";
-            else if (22.5 < relAngle && relAngle < 67.5) arrow = "↖";
-            else if (-22.5 < relAngle && relAngle < 22.5) arrow = "↑";
-            else if (-67.5 < relAngle && relAngle < -22.5) arrow = "↗";
-            else if (-112.5 < relAngle && relAngle < -67.5) arrow = "→";
-            else if (-157.5 < relAngle && relAngle < -112.5) arrow = "↘";
-            else arrow = "↓";
-            
-            TextColor clr = teammate.isOnline() ? NamedTextColor.GOLD : NamedTextColor.DARK_GRAY;
-            s.append(Component.text(arrow, clr));
+        if (arrow != NO_ARROW) {
+            TextColor clr = tm.online ? NamedTextColor.GOLD : NamedTextColor.DARK_GRAY;
+            s.append(Component.text(ARROWS[arrow], clr));
         }
 
         return s.asComponent();
@@ -137,6 +396,31 @@ public class HUDManager implements Listener {
      */
     private static final String PREFIXING_TEAM_FORMAT = "uhc_";
 
+    /**
+     * Lobby scoreboards, shared by every player in the same view class (see {@link #viewClass}).
+     * In game, each player needs their own scoreboard for their sidebar.
+     */
+    private final Map<Integer, Scoreboard> lobbyBoards = new HashMap<>();
+
+    /**
+     * Players in the same view class see the same prefixes on everyone (see {@link #playerTeamProperties}).
+     * @param p Player to inspect
+     * @return the view class of the player
+     */
+    private int viewClass(Player p) {
+        // only "display only your team" depends on the recipient
+        if (plugin.configValues().hideTeams() != HideTeams.SHOW_OWN) return 0;
+        if (!teamManager.isAssignedCombatant(p)) return 0;
+        return teamManager.getTeam(p);
+    }
+
+    /**
+     * @return the number of distinct scoreboards online players are viewing
+     */
+    public int numScoreboardsInUse() {
+        return scoreboardsInUse(false).size();
+    }
+
     private Set<Scoreboard> scoreboardsInUse(boolean includeMain) {
         Set<Scoreboard> scoreboards = new HashSet<>();
         if (includeMain) scoreboards.add(Bukkit.getScoreboardManager().getMainScoreboard());
@@ -181,23 +465,18 @@ public class HUDManager implements Listener {
             return new TeamProperties(tState, tTeam, true);
         }
 
-        int hideTeams = plugin.configValues().hideTeams();
-        // 0: Display all teams
-        // 1: Display only your team
-        // 2: Do not display teams
-
-        return switch (hideTeams) {
-            case 0 -> new TeamProperties(tState, tTeam, true);
+        return switch (plugin.configValues().hideTeams()) {
+            case SHOW_ALL -> new TeamProperties(tState, tTeam, true);
 
             // if same, target should display as their team
             // if not same, target should appear under the recipient team, no prefix
-            case 1 -> {
+            case SHOW_OWN -> {
                 boolean same = teamManager.onSameTeam(recipient, target);
                 yield new TeamProperties(tState, tTeam + (same ? 0 : 1), same);
             }
 
             // do not show any prefixes, everyone is same priority
-            default -> new TeamProperties(tState, 1, false);
+            case HIDE_ALL -> new TeamProperties(tState, 1, false);
         };
     }
 
@@ -213,9 +492,73 @@ public class HUDManager implements Listener {
         if (t == null) {
             t = s.registerNewTeam(teamName);
             if (tp.showPrefix()) t.prefix(tp.prefix());
+        } else if (t.hasEntry(p.getName())) {
+            // re-adding would resend the team membership
+            Profiler.count(Profiler.Counter.PREFIX_SUPPRESSED);
+            return;
         }
 
         t.addPlayer(p);
+        Profiler.count(Profiler.Counter.PREFIX_SENT);
+    }
+
+    /**
+     * Register several players with the same prefix to a scoreboard at once
+     * @param s Scoreboard to register player prefixes on
+     * @param entries Names of the players
+     * @param tp Properties of the players' prefix
+     */
+    private void applyPrefixOnScoreboard(Scoreboard s, Collection<String> entries, TeamProperties tp) {
+        String teamName = tp.teamName();
+        Team t = s.getTeam(teamName);
+        if (t == null) {
+            t = s.registerNewTeam(teamName);
+            if (tp.showPrefix()) t.prefix(tp.prefix());
+        }
+
+        t.addEntries(entries);
+    }
+
+    /**
+     * Registers every online player's prefix on every scoreboard in use.
+     * <p>
+     * Each scoreboard is visited once, and all players with the same prefix team are added to it together.
+     * The prefix teams are only computed once per view class (see {@link #viewClass}).
+     */
+    private void bootstrapPrefixes() {
+        long t0 = Profiler.start();
+        Collection<? extends Player> online = Bukkit.getOnlinePlayers();
+
+        if (plugin.configValues().hideTeams() == HideTeams.SHOW_ALL) {
+            // these are global, so they need to be hidden if team display is not global
+            Map<TeamProperties, List<String>> mainTeams = new HashMap<>();
+            for (Player p : online) {
+                PlayerState s = teamManager.getPlayerState(p);
+                int t = teamManager.getTeam(p);
+                setDisplayName(p, TeamDisplay.prefixed(s, t, p.getName()));
+                mainTeams.computeIfAbsent(new TeamProperties(s, t, true), k -> new ArrayList<>()).add(p.getName());
+            }
+
+            Scoreboard main = Bukkit.getScoreboardManager().getMainScoreboard();
+            mainTeams.forEach((tp, entries) -> applyPrefixOnScoreboard(main, entries, tp));
+        }
+
+        Map<Integer, Map<TeamProperties, List<String>>> teamsByClass = new HashMap<>();
+        Set<Scoreboard> applied = new HashSet<>();
+        for (Player recipient : online) {
+            Scoreboard b = recipient.getScoreboard();
+            if (!applied.add(b)) continue;
+
+            var teams = teamsByClass.computeIfAbsent(viewClass(recipient), k -> {
+                Map<TeamProperties, List<String>> m = new HashMap<>();
+                for (Player target : online) {
+                    m.computeIfAbsent(playerTeamProperties(recipient, target), tp -> new ArrayList<>()).add(target.getName());
+                }
+                return m;
+            });
+            teams.forEach((tp, entries) -> applyPrefixOnScoreboard(b, entries, tp));
+        }
+        Profiler.stop(Profiler.Section.PREFIX_DISPATCH, t0);
     }
 
     /**
@@ -244,8 +587,8 @@ public class HUDManager implements Listener {
      * @param p Player whose prefix should be dispatched
      */
     public void dispatchPrefixUpdate(Player p) {
-        int hideTeams = plugin.configValues().hideTeams();
-        if (hideTeams == 0) {
+        long t0 = Profiler.start();
+        if (plugin.configValues().hideTeams() == HideTeams.SHOW_ALL) {
             // these are global, so they need to be hidden if team display is not global
             PlayerState s = teamManager.getPlayerState(p);
             int t = teamManager.getTeam(p);
@@ -255,9 +598,12 @@ public class HUDManager implements Listener {
             applyPrefixOnScoreboard(main, p, new TeamProperties(s, t, true));
         }
 
+        // players sharing a scoreboard share a view class, so apply once per scoreboard
+        Set<Scoreboard> applied = new HashSet<>();
         for (Player q : Bukkit.getOnlinePlayers()) {
-            applyPrefixOnPlayerScoreboard(q, p);
+            if (applied.add(q.getScoreboard())) applyPrefixOnPlayerScoreboard(q, p);
         }
+        Profiler.stop(Profiler.Section.PREFIX_DISPATCH, t0);
     }
 
     /**
@@ -294,7 +640,7 @@ public class HUDManager implements Listener {
             team = b.registerNewTeam(name);
         }
         if (position < 1 || position > 15) {
-            throw new Key("err.hud.must_fit").transErr(IllegalArgumentException.class);
+            throw MUST_FIT.transErr(IllegalArgumentException.class);
         }
         String pname = createEmptyName(Integer.toString(position, 16).charAt(0));
         team.addEntry(pname);
@@ -304,19 +650,45 @@ public class HUDManager implements Listener {
         hud.getScore(pname).setScore(position);
     }
 
+    /**
+     * Sets the content of a HUD line in a player's scoreboard. 
+     * If the line already displays this content, no update is sent.
+     * @param p Player whose scoreboard will be updated
+     * @param field Identifier of the HUD line
+     * @param text New content of the HUD line
+     */
     private void setHUDLine(@NotNull Player p, @NotNull String field, @NotNull ComponentLike text) {
         Scoreboard b = p.getScoreboard();
         Team team = b.getTeam(field);
         if(team == null) return;
-        team.prefix(text.asComponent());
+
+        RenderedHUD rendered = renderedHUDs.get(p.getUniqueId());
+        if (rendered == null || rendered.board() != b) {
+            rendered = new RenderedHUD(b, new HashMap<>());
+            renderedHUDs.put(p.getUniqueId(), rendered);
+        }
+
+        Component c = text.asComponent();
+        if (c.equals(rendered.lines().get(field))) {
+            Profiler.count(Profiler.Counter.HUD_LINE_SUPPRESSED);
+            return;
+        }
+
+        team.prefix(plugin.getLangManager().renderCached(c, p.locale()));
+        rendered.lines().put(field, c);
+        Profiler.count(Profiler.Counter.HUD_LINE_SENT);
     }
 
     /**
-      * Create a new scoreboard to display just the prefixes (and not disrupt the main scoreboard) while in lobby
+      * Give the player a scoreboard to display just the prefixes (and not disrupt the main scoreboard) while in lobby.
+      * This scoreboard is shared with every other player in the same view class.
       * @param p Player 
       */
     public void initPlayerHUDLite(@NotNull Player p) {
-        Scoreboard sb = Bukkit.getScoreboardManager().getNewScoreboard();
+        renderedHUDs.remove(p.getUniqueId());
+        Scoreboard sb = lobbyBoards.computeIfAbsent(viewClass(p), 
+            k -> Bukkit.getScoreboardManager().getNewScoreboard()
+        );
         p.setScoreboard(sb);
 
         updatePrefixesHUD(p);
@@ -328,6 +700,31 @@ public class HUDManager implements Listener {
      * @param p Player whose scoreboard should be initialized
      */
     public void initPlayerHUD(@NotNull Player p) {
+        initPlayerHUDWithoutPrefixes(p);
+        updateHealthHUD(p);
+        updatePrefixesHUD(p);
+        dispatchPrefixUpdate(p);
+    }
+
+    /**
+     * Init the HUDs of many players at once (e.g. at game start).
+     * Unlike calling {@link #initPlayerHUD} on each player, prefixes are registered in bulk,
+     * and heart scores are filled in over the following flushes (see {@link #seedHeartScores}).
+     * @param players Players whose scoreboards should be initialized
+     */
+    public void initPlayerHUDs(@NotNull Collection<? extends Player> players) {
+        frame = null; // teams were just assigned
+        unseededBoards.clear();
+        for (Player p : players) {
+            initPlayerHUDWithoutPrefixes(p);
+            setHUDLine(p, "state", formatState(p));
+            unseededBoards.add(p.getUniqueId());
+        }
+        bootstrapPrefixes();
+    }
+
+    private void initPlayerHUDWithoutPrefixes(@NotNull Player p) {
+        renderedHUDs.remove(p.getUniqueId());
         createHUDScoreboard(p);
 
         addHUDLine(p, "state",      15);
@@ -349,9 +746,6 @@ public class HUDManager implements Listener {
         updateTeamsAliveHUD(p);
         updateKillsHUD(p);
         updateElapsedTimeHUD(p);
-        updateHealthHUD(p);
-        updatePrefixesHUD(p);
-        dispatchPrefixUpdate(p);
     }
 
     /**
@@ -363,6 +757,18 @@ public class HUDManager implements Listener {
         for (Player p : Bukkit.getOnlinePlayers()) {
             p.setScoreboard(main);
         }
+        renderedHUDs.clear();
+        teammateLines.clear();
+        shownArrows.clear();
+        lobbyBoards.clear();
+        movedPlayers.clear();
+        relocatedPlayers.clear();
+        healthChangedPlayers.clear();
+        turnedPlayers.clear();
+        lastMoves.clear();
+        unseededBoards.clear();
+        combatantGrids.clear();
+        combatantGridsTick = -1;
         
         // remove all prefix teams from main
         main.getTeams().stream()
@@ -377,6 +783,9 @@ public class HUDManager implements Listener {
     private void cleanup(Player p) {
         Scoreboard main = Bukkit.getScoreboardManager().getMainScoreboard();
         p.setScoreboard(main);
+        renderedHUDs.remove(p.getUniqueId());
+        lastMoves.remove(p.getUniqueId());
+        shownArrows.remove(p.getUniqueId());
 
         main.getTeams().stream()
             .filter(t -> t.getName().startsWith(PREFIXING_TEAM_FORMAT))
@@ -384,6 +793,17 @@ public class HUDManager implements Listener {
 
     }
 
+    /**
+     * Moves every player in the lobby onto a new shared scoreboard for their view class.
+     * The view classes depend on team.hide_teams, so this is called whenever it changes outside of the game.
+     */
+    public void refreshLobbyBoards() {
+        lobbyBoards.clear();
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            prepareToLobby(p);
+        }
+    }
+
     public void prepareToLobby(Player p) {
         if (teamManager.isAssignedCombatant(p)) {
             initPlayerHUDLite(p);
@@ -402,6 +822,47 @@ public class HUDManager implements Listener {
         return p.dist(q);
     }
     
+    /**
+     * @return the positions of every combatant, by world
+     */
+    private Map<World, SpatialGrid<Player>> combatantPositions() {
+        int tick = Bukkit.getCurrentTick();
+        if (combatantGridsTick == tick) return combatantGrids;
+
+        combatantGrids.values().forEach(SpatialGrid::clear);
+        for (Player q : teamManager.getCombatants().cached()) {
+            Location l = q.getLocation();
+            combatantGrids.computeIfAbsent(l.getWorld(), w -> new SpatialGrid<>(PROXIMITY_CELL_SIZE))
+                .add(q, l.getX(), l.getZ());
+        }
+        combatantGridsTick = tick;
+        return combatantGrids;
+    }
+
+    /**
+     * Finds the combatants nearest to a player. 
+     * Combatants in the player's world come first, then combatants in other worlds (in no particular order).
+     * @param p Player to search around
+     * @param k Max number of combatants to find
+     * @param filter Only combatants matching this are included
+     * @return up to k combatants
+     */
+    private List<Player> nearestCombatants(@NotNull Player p, int k, Predicate<Player> filter) {
+        Location l = p.getLocation();
+        var grids = combatantPositions();
+
+        List<Player> result = new ArrayList<>(k);
+        var own = grids.get(l.getWorld());
+        if (own != null) result.addAll(own.nearest(l.getX(), l.getZ(), k, filter));
+
+        for (var e : grids.entrySet()) {
+            if (result.size() >= k) break;
+            if (e.getKey() == l.getWorld()) continue;
+            result.addAll(e.getValue().nearest(l.getX(), l.getZ(), k - result.size(), filter));
+        }
+        return result;
+    }
+
     /* UPDATING SECTIONS OF HUD */
     private void updateTeammateHUD(@NotNull Player p) {
         Scoreboard b = p.getScoreboard();
@@ -446,10 +907,7 @@ public class HUDManager implements Listener {
                 .anyMatch(c -> c.getOrDefault(new NamespacedKey(plugin, "prox_compass"), new BooleanTagType(), false));
             
             if (hasProxCompass) {
-                teamManager.getCombatants().online().stream()
-                    .filter(q -> !teamManager.onSameTeam(p, q))
-                    .min(compareByProximity)
-                    .ifPresent(teammateSet::add);
+                teammateSet.addAll(nearestCombatants(p, 1, q -> q.isOnline() && !teamManager.onSameTeam(p, q)));
             }
         }
 
@@ -461,9 +919,10 @@ public class HUDManager implements Listener {
                 .thenComparing(compareByAliveness)
                 .thenComparing(compareByHealth);
         } else {
-            teammateSet.addAll(
-                teamManager.getCombatants().cached()
-            );
+            // only the nearest 5 alive and the nearest 5 dead can make it past the sort
+            Predicate<Player> alive = q -> q != p && teamManager.getPlayerState(q) == PlayerState.COMBATANT_ALIVE;
+            teammateSet.addAll(nearestCombatants(p, 5, alive));
+            teammateSet.addAll(nearestCombatants(p, 5, alive.negate().and(q -> q != p)));
             sorter = proxPriority
                 .thenComparing(compareByAliveness)
                 .thenComparing(compareByProximity);
@@ -475,6 +934,7 @@ public class HUDManager implements Listener {
             .limit(5)
             ::iterator;
 
+        ShownArrows shown = shownArrows.computeIfAbsent(p.getUniqueId(), k -> new ShownArrows());
         int i = 0;
         for (Player tmate : tmates) {
             String rowName = "tmate" + i;
@@ -484,9 +944,16 @@ public class HUDManager implements Listener {
                 addHUDLine(p, rowName, 14 - i);
             }
 
-            setHUDLine(p, rowName, formatTeammate(p, tmate));
+            boolean dead = teamManager.getPlayerState(tmate) == PlayerState.COMBATANT_DEAD;
+            int arrow = dead ? NO_ARROW : arrowIndex(p, tmate);
+            shown.teammates[i] = tmate;
+            shown.arrows[i] = arrow;
+
+            setHUDLine(p, rowName, formatTeammate(p, tmate, arrow));
             i++;
         }
+        Arrays.fill(shown.teammates, i, shown.teammates.length, null);
+        shown.size = i;
     }
     
     public void updateMovementHUD(@NotNull Player p){
@@ -514,82 +981,118 @@ public class HUDManager implements Listener {
          * 315 - 360: -X
          */
 
-        if ( 90 <= yaw && yaw < 225) xz.add(new Key("hud.neg_x").trans().color(NamedTextColor.RED));
-        if (270 <= yaw || yaw <  45) xz.add(new Key("hud.pos_x").trans().color(NamedTextColor.RED));
+        if ( 90 <= yaw && yaw < 225) xz.add(NEG_X.trans().color(NamedTextColor.RED));
+        if (270 <= yaw || yaw <  45) xz.add(POS_X.trans().color(NamedTextColor.RED));
 
-        if (  0 <= yaw && yaw < 135) xz.add(new Key("hud.pos_z").trans().color(NamedTextColor.BLUE));
-        if (180 <= yaw && yaw < 315) xz.add(new Key("hud.neg_z").trans().color(NamedTextColor.BLUE));
+        if (  0 <= yaw && yaw < 135) xz.add(POS_Z.trans().color(NamedTextColor.BLUE));
+        if (180 <= yaw && yaw < 315) xz.add(NEG_Z.trans().color(NamedTextColor.BLUE));
 
-        Component pos = new Key("hud.position").trans(x, y, z).color(NamedTextColor.GREEN);
-        Component rot = new Key("hud.rotation").trans(Component.join(JoinConfiguration.separator(Component.space()), xz))
+        Component pos = POSITION.trans(x, y, z).color(NamedTextColor.GREEN);
+        Component rot = ROTATION.trans(Component.join(JoinConfiguration.separator(Component.space()), xz))
             .color(NamedTextColor.WHITE);
         setHUDLine(p, "posrot", Component.join(JoinConfiguration.separator(Component.space()), pos, rot));
     }
 
-    public void updateWBHUD(@NotNull Player p) {
-        // world border radius format
-        GameStage gs = gameManager.getStage();
-        double r = (p.getWorld().getWorldBorder().getSize() / 2);
-        Component wbrad;
+    /**
+     * The HUD lines which are the same for every player (or every player in a world).
+     * Each line is rendered the first time it is needed in a tick, and is then reused for every player.
+     */
+    private final class HudFrame {
+        private final int tick = Bukkit.getCurrentTick();
+
+        private Component elapsedTime;
+        private final Map<World, Component> borders = new HashMap<>();
+        private Component combsAlive;
+        private Optional<Component> teamsAlive;
+
+        Component elapsedTime() {
+            if (elapsedTime != null) return elapsedTime;
+            String elapsed = getLongTimeString(gameManager.getElapsedTime(), "?");
+
+            World world = plugin.getWorldManager().getGameWorld(0);
+            long time = world.getTime();
+            boolean isDay = !(13188 <= time && time <= 22812);
+            TextColor dayCharColor = isDay ? TextColor.color(255, 245, 123) : TextColor.color(43, 47, 119);
+            String dayCharString = isDay ? "☀" : "☽";
+
+            return elapsedTime = GAME_TIME.trans(
+                Component.text(elapsed, NamedTextColor.WHITE),
+                Component.text(dayCharString, dayCharColor)
+            ).color(NamedTextColor.RED);
+        }
 
-        if (gs.isWBInstant()) {
-            wbrad = new Key("hud.wbradius.stationary").trans((int) r).color(NamedTextColor.AQUA);
-        } else {
-            double finalR = gs.wbRadius();
-            wbrad = new Key("hud.wbradius.traveling").trans((int) r, (int) finalR).color(NamedTextColor.AQUA);
+        Component border(World w) {
+            return borders.computeIfAbsent(w, world -> {
+                // world border radius format
+                GameStage gs = gameManager.getStage();
+                double r = (world.getWorldBorder().getSize() / 2);
+
+                if (gs.isWBInstant()) {
+                    return WB_STATIONARY.trans((int) r).color(NamedTextColor.AQUA);
+                } else {
+                    double finalR = gs.wbRadius();
+                    return WB_TRAVELING.trans((int) r, (int) finalR).color(NamedTextColor.AQUA);
+                }
+            });
         }
-;
-        setHUDLine(p, "wbpos", wbrad);
-    }
 
-    public void updateElapsedTimeHUD(@NotNull Player p){
-        String elapsed = getLongTimeString(gameManager.getElapsedTime(), "?");
+        Component combsAlive() {
+            if (combsAlive != null) return combsAlive;
+            return combsAlive = COMB_COUNT.trans(
+                Component.text(teamManager.getNumAliveCombatants(), NamedTextColor.WHITE),
+                Component.text(teamManager.getNumAssignedCombatants(), NamedTextColor.WHITE)
+            ).color(NamedTextColor.WHITE);
+        }
 
-        World world = plugin.getWorldManager().getGameWorld(0);
-        long time = world.getTime();
-        boolean isDay = !(13188 <= time && time <= 22812);
-        TextColor dayCharColor = isDay ? TextColor.color(255, 245, 123) : TextColor.color(43, 47, 119);
-        String dayCharString = isDay ? "☀" : "☽";
+        /**
+         * @return the teams alive line, or empty if there are no teams
+         */
+        Optional<Component> teamsAlive() {
+            if (teamsAlive != null) return teamsAlive;
+            int nAlive = teamManager.getNumAliveTeams(),
+                nTeams = teamManager.getNumTeams();
+            
+            if (nTeams == 0) return teamsAlive = Optional.empty();
+            return teamsAlive = Optional.of(TEAM_COUNT.trans(
+                Component.text(nAlive, NamedTextColor.WHITE),
+                Component.text(nTeams, NamedTextColor.WHITE)
+            ).color(NamedTextColor.WHITE));
+        }
+    }
+    private HudFrame frame;
 
-        Component s = new Key("hud.gametime").trans(
-            Component.text(elapsed, NamedTextColor.WHITE),
-            Component.text(dayCharString, dayCharColor)
-        ).color(NamedTextColor.RED);
+    /**
+     * @return the shared HUD lines for this tick
+     */
+    private HudFrame frame() {
+        if (frame == null || frame.tick != Bukkit.getCurrentTick()) frame = new HudFrame();
+        return frame;
+    }
 
-        setHUDLine(p, "elapsedTime", s);
+    public void updateWBHUD(@NotNull Player p) {
+        setHUDLine(p, "wbpos", frame().border(p.getWorld()));
+    }
 
+    public void updateElapsedTimeHUD(@NotNull Player p){
+        setHUDLine(p, "elapsedTime", frame().elapsedTime());
     }
 
     public void updateCombatantsAliveHUD(@NotNull Player p) {
-        var s = new Key("hud.combcount").trans(
-            Component.text(teamManager.getAliveCombatants().size(), NamedTextColor.WHITE),
-            Component.text(teamManager.getAssignedCombatants().size(), NamedTextColor.WHITE)
-        ).color(NamedTextColor.WHITE);
-        setHUDLine(p, "combsalive", s);
+        setHUDLine(p, "combsalive", frame().combsAlive());
     }
 
     public void updateTeamsAliveHUD(@NotNull Player p) {
-        int nAlive = teamManager.getAliveTeams().length,
-            nTeams = teamManager.getNumTeams();
-        
-        if (nTeams != 0) {
+        frame().teamsAlive().ifPresent(s -> {
             addHUDLine(p, "teamsalive",  4);
-
-            var s = new Key("hud.teamcount").trans(
-                Component.text(nAlive, NamedTextColor.WHITE),
-                Component.text(nTeams, NamedTextColor.WHITE)
-            ).color(NamedTextColor.WHITE);
-    
             setHUDLine(p, "teamsalive", s);
-        }
-        
+        });
     }
 
     public void updateKillsHUD(@NotNull Player p) {
         OptionalInt k = gameManager.getKills(p);
 
         if (k.isPresent()) {
-            var s = new Key("hud.killcount").trans(
+            var s = KILL_COUNT.trans(
                 Component.text(k.orElseThrow(), NamedTextColor.WHITE)
             ).color(NamedTextColor.WHITE);
             
@@ -603,19 +1106,63 @@ public class HUDManager implements Listener {
      * @param p Player whose health needs to be updated
      */
     private void updateHealthOnScoreboard(Scoreboard s, Player p) {
-        int hp;
+        setHeartScore(s, p, heartScore(p));
+    }
+
+    /**
+     * @param p Player
+     * @return the health shown for the player in the heart objectives
+     */
+    private int heartScore(Player p) {
         if (teamManager.getPlayerState(p) == PlayerState.COMBATANT_ALIVE) {
-            hp = (int) Math.ceil(getTotalHealth(p));
-        } else {
-            hp = 0;
+            return (int) Math.ceil(getTotalHealth(p));
         }
+        return 0;
+    }
 
-        List.of("hearts1", "hearts2")
-            .forEach(objName -> {
-                    Objective obj = s.getObjective(objName);
-                    Score score = obj.getScore(p);
-                    score.setScore(hp);
-            });
+    private static final String[] HEART_OBJECTIVES = { "hearts1", "hearts2" };
+    private void setHeartScore(Scoreboard s, Player p, int hp) {
+        for (String objName : HEART_OBJECTIVES) {
+            Objective obj = s.getObjective(objName);
+            if (obj == null) continue;
+
+            Score score = obj.getScore(p);
+            if (score.isScoreSet() && score.getScore() == hp) {
+                Profiler.count(Profiler.Counter.HEALTH_SCORE_SUPPRESSED);
+                continue;
+            }
+            score.setScore(hp);
+            Profiler.count(Profiler.Counter.HEALTH_SCORE_SENT);
+        }
+    }
+
+    /**
+     * Fills in the heart scores of boards created at game start, 
+     * stopping after the board which reaches {@link #HEART_SEEDS_PER_FLUSH} scores.
+     * Each combatant's score is computed once per call, not once per board.
+     */
+    private void seedHeartScores() {
+        if (unseededBoards.isEmpty()) return;
+
+        var combatants = teamManager.getCombatants().online();
+        Player[] players = new Player[combatants.size()];
+        int[] hps = new int[players.length];
+        int n = 0;
+        for (Player c : combatants) {
+            players[n] = c;
+            hps[n] = heartScore(c);
+            n++;
+        }
+
+        int budget = HEART_SEEDS_PER_FLUSH;
+        while (budget > 0 && !unseededBoards.isEmpty()) {
+            Player viewer = Bukkit.getPlayer(unseededBoards.poll());
+            if (viewer == null) continue;
+
+            Scoreboard s = viewer.getScoreboard();
+            for (int i = 0; i < n; i++) setHeartScore(s, players[i], hps[i]);
+            budget -= HEART_OBJECTIVES.length * Math.max(1, n);
+        }
     }
 
     public void updateHealthHUD(Player p) {
@@ -626,19 +1173,95 @@ public class HUDManager implements Listener {
         }
     }
 
+    /**
+     * @param p Player to inspect
+     * @return everyone who could see this player's health / position on their teammate HUD
+     */
+    private Set<Player> teammateHUDViewers(@NotNull Player p) {
+        int t = teamManager.getTeam(p);
+        Set<Player> viewers = new HashSet<>(teamManager.getSpectators().online());
+        if (t != 0) viewers.addAll(teamManager.getCombatantsOnTeam(t).online());
+        return viewers;
+    }
+
     /**
      * Updates the teammate hud for everyone who could see this player's health / position
      * @param p Player whose health/position should be updated
      */
     public void dispatchTeammateHUDUpdate(@NotNull Player p) {
+        for (Player viewer : teammateHUDViewers(p)) {
+            updateTeammateHUD(viewer);
+        }
+    }
 
-        int t = teamManager.getTeam(p);
-        Set<Player> viewers = new HashSet<>(teamManager.getSpectators().online());
-        if (t != 0) viewers.addAll(teamManager.getCombatantsOnTeam(t).online());
+    /**
+     * Recomputes the HUDs affected by every position and health change since the last flush.
+     * <p>
+     * Each moved player's movement HUD, each changed player's health, 
+     * and each viewer's teammate HUD is updated once, no matter how many events marked them.
+     */
+    public void flushDirty() {
+        seedHeartScores();
+        if (movedPlayers.isEmpty() && relocatedPlayers.isEmpty() && healthChangedPlayers.isEmpty() && turnedPlayers.isEmpty()) return;
+        long t0 = Profiler.start();
+
+        Set<Player> viewers = new HashSet<>();
+        for (UUID uuid : movedPlayers) {
+            Player p = Bukkit.getPlayer(uuid);
+            if (p == null) continue;
+
+            // their own teammate HUD's arrows depend on their position and facing
+            updateMovementHUD(p);
+            viewers.add(p);
+
+            // so do the arrows pointing at them, which can change before they leave their distance bucket
+            if (!relocatedPlayers.contains(uuid)) {
+                for (Player viewer : teammateHUDViewers(p)) {
+                    if (arrowChanged(viewer, p)) viewers.add(viewer);
+                }
+            }
+        }
+        for (UUID uuid : turnedPlayers) {
+            Player p = Bukkit.getPlayer(uuid);
+            if (p != null) viewers.add(p);
+        }
+        for (UUID uuid : relocatedPlayers) {
+            Player p = Bukkit.getPlayer(uuid);
+            if (p == null) continue;
+
+            viewers.addAll(teammateHUDViewers(p));
+        }
+        if (!healthChangedPlayers.isEmpty()) {
+            // equivalent to dispatchHealthHUDUpdate for each player, but only finds the scoreboards once
+            var scoreboards = scoreboardsInUse(false);
+            for (UUID uuid : healthChangedPlayers) {
+                Player p = Bukkit.getPlayer(uuid);
+                if (p == null) continue;
+
+                for (var s : scoreboards) updateHealthOnScoreboard(s, p);
+                viewers.addAll(teammateHUDViewers(p));
+            }
+        }
+        movedPlayers.clear();
+        relocatedPlayers.clear();
+        healthChangedPlayers.clear();
+        turnedPlayers.clear();
 
         for (Player viewer : viewers) {
             updateTeammateHUD(viewer);
         }
+        Profiler.stop(Profiler.Section.HUD_FLUSH, t0);
+    }
+
+    /**
+     * Re-reads the player's max health (which their teammate line's color is relative to) after it was changed,
+     * and updates the HUDs showing them in the next flush.
+     * @param p Player whose max health changed
+     */
+    public void dispatchMaxHealthUpdate(@NotNull Player p) {
+        TeammateLines cached = teammateLines.get(p.getUniqueId());
+        if (cached != null) cached.maxHP = getMaxHealth(p);
+        healthChangedPlayers.add(p.getUniqueId());
     }
 
     /**
@@ -655,34 +1278,62 @@ public class HUDManager implements Listener {
     @EventHandler
     public void onMove(PlayerMoveEvent e){
         if (!gameManager.hasUHCStarted()) return;
+        long t0 = Profiler.start();
         Player p = e.getPlayer();
+        UUID uuid = p.getUniqueId();
+
+        // skip moves that don't change anything the HUD shows (jitter, small head turns)
+        MoveKey key = moveKey(e.getTo());
+        MoveKey old = lastMoves.put(uuid, key);
+        if (key.equals(old)) {
+            // the arrows' bins are relative to each teammate's bearing, so the yaw sectors can't catch every arrow change
+            if (arrowsChanged(p, e.getTo())) turnedPlayers.add(uuid);
+            Profiler.count(Profiler.Counter.MOVE_FILTERED);
+            Profiler.stop(Profiler.Section.ON_MOVE, t0);
+            return;
+        }
+        Profiler.count(Profiler.Counter.MOVE_HANDLED);
 
-        updateMovementHUD(p);
-        dispatchTeammateHUDUpdate(p);
+        // the HUD is updated in flushDirty
+        movedPlayers.add(uuid);
+        if (key.relocatedFrom(old)) relocatedPlayers.add(uuid);
+        Profiler.stop(Profiler.Section.ON_MOVE, t0);
     }
 
-    private final Runnable getHealthChangeHandler(EntityEvent e) {
-        return () -> {
-            if (!gameManager.hasUHCStarted()) return;
+    private MoveKey moveKey(Location loc) {
+        var cfg = plugin.configValues();
+        int sectors = cfg.moveYawSectors(),
+            bucket = cfg.moveDistanceBucket();
 
-            if (e.getEntity() instanceof Player p) {
-                // update hud if dmg taken
-                dispatchHealthHUDUpdate(p);
-                dispatchTeammateHUDUpdate(p);
-            }
-        };
+        int x = loc.getBlockX(),
+            y = loc.getBlockY(),
+            z = loc.getBlockZ();
+        // aligned so that the 8 sectors match the facing shown by updateMovementHUD (teammate arrows are checked separately in onMove)
+        int yawSector = (int) (mod(loc.getYaw() + 67.5, 360) * sectors / 360);
+
+        return new MoveKey(loc.getWorld(), x, y, z, yawSector, Math.floorDiv(x, bucket), Math.floorDiv(z, bucket));
     }
 
-    @EventHandler
+    private void onHealthChange(EntityEvent e, Profiler.Section section) {
+        // most of these events are for mobs, so check for players first
+        if (!(e.getEntity() instanceof Player p)) return;
+        if (!gameManager.hasUHCStarted()) return;
+
+        long t0 = Profiler.start();
+        // the HUD is updated in flushDirty, which runs after the health change is applied
+        healthChangedPlayers.add(p.getUniqueId());
+        Profiler.stop(section, t0);
+    }
+
+    // cancelled events do not change health, and these handlers only observe the result
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerDamage(EntityDamageEvent e) {
-        Runnable handler = getHealthChangeHandler(e);
-        Bukkit.getScheduler().runTaskLater(plugin, handler, 1);
+        onHealthChange(e, Profiler.Section.ON_DAMAGE);
     }
 
-    @EventHandler
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerHeal(EntityRegainHealthEvent e) {
-        Runnable handler = getHealthChangeHandler(e);
-        Bukkit.getScheduler().runTaskLater(plugin, handler, 1);
+        onHealthChange(e, Profiler.Section.ON_HEAL);
     }
 
     @EventHandler
@@ -695,6 +1346,7 @@ public class HUDManager implements Listener {
                     // if they change state in game, 
                     
                     //they might've just died or respawned
+                    frame = null;
                     for (Player p : Bukkit.getOnlinePlayers()) {
                         updateCombatantsAliveHUD(p);
                         updateTeamsAliveHUD(p);
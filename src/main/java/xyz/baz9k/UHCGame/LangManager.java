@@ -2,20 +2,33 @@ package xyz.baz9k.UHCGame;
 
 import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
 import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import org.bukkit.NamespacedKey;
 import org.bukkit.configuration.file.*;
 
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.translation.GlobalTranslator;
 import net.kyori.adventure.translation.TranslationRegistry;
+import xyz.baz9k.UHCGame.util.Profiler;
 
 public class LangManager {
+    // translation keys, checked when the plugin is enabled
+    private static final Key MISSING_FILE = Key.of("err.lang.missing_file"),
+                             MISSING_KEYS = Key.of("err.lang.missing_keys");
+
     private static final Locale DEFAULT_LOCALE = Locale.US;
     private static Locale pluginLocale = DEFAULT_LOCALE;
 
@@ -24,6 +37,21 @@ public class LangManager {
     private final HashMap<Locale, YamlConfiguration> yamlFileCache = new HashMap<>();
     private final Map<Locale, Map<String, MessageFormat>> cfgCache = new HashMap<>();
 
+    /**
+     * Max number of renders kept in {@link #renderCache}
+     */
+    private static final int RENDER_CACHE_SIZE = 1024;
+    private record RenderKey(Locale locale, Component component) { }
+    /**
+     * Recently rendered components, least recently used first
+     */
+    private final Map<RenderKey, Component> renderCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RenderKey, Component> eldest) {
+            return size() > RENDER_CACHE_SIZE;
+        }
+    };
+
     public LangManager(UHCGamePlugin plugin) {
         this.plugin = plugin;
 
@@ -45,6 +73,75 @@ public class LangManager {
     private void loadLang(Locale l) {
         if (cfgCache.containsKey(l)) return; // already loaded
         reg.registerAll(l, langEntries(l));
+        renderCache.clear();
+    }
+
+    /**
+     * Initializes every class in the plugin jar.
+     * <p>
+     * Constant {@link Key}s are only created when their class is initialized, and some classes (e.g. nested enums)
+     * are first used long after startup. Listing the classes from the jar means new ones can't be missed.
+     */
+    private void initPluginClasses() {
+        ClassLoader loader = plugin.getClass().getClassLoader();
+        String pkg = UHCGamePlugin.class.getPackageName().replace('.', '/') + "/";
+
+        try (JarFile jar = new JarFile(new File(plugin.getClass().getProtectionDomain().getCodeSource().getLocation().toURI()))) {
+            for (JarEntry e : Collections.list(jar.entries())) {
+                String name = e.getName();
+                if (!name.startsWith(pkg) || !name.endsWith(".class")) continue;
+
+                String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+                Class.forName(className, true, loader);
+            }
+        } catch (IOException | URISyntaxException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks that every constant {@link Key} (see {@link Key#of}) exists in the default language file.
+     * @throws IllegalStateException if any are missing
+     */
+    public void validateKeys() {
+        initPluginClasses();
+
+        List<String> missing = Key.validateAll(this::hasKey);
+
+        if (!missing.isEmpty()) {
+            throw MISSING_KEYS.transErr(IllegalStateException.class, String.join(", ", missing));
+        }
+    }
+
+    /**
+     * @param k Key to check
+     * @return if the key exists in the default language file (which other languages fall back to)
+     */
+    public boolean hasKey(Key k) {
+        return langYaml(DEFAULT_LOCALE).isString(k.key());
+    }
+
+    /**
+     * Renders the translations in a component, reusing the result if the same component was already rendered in this locale.
+     * <p>
+     * Sending the rendered component means the server does not have to translate it again for each player.
+     * This should only be called on the main thread.
+     * @param c unrendered Component
+     * @param l Locale to render in
+     * @return rendered Component
+     */
+    public Component renderCached(Component c, Locale l) {
+        RenderKey k = new RenderKey(l, c);
+        Component rendered = renderCache.get(k);
+        if (rendered != null) {
+            Profiler.count(Profiler.Counter.RENDER_HIT);
+            return rendered;
+        }
+
+        Profiler.count(Profiler.Counter.RENDER_MISS);
+        rendered = GlobalTranslator.render(c, l);
+        renderCache.put(k, rendered);
+        return rendered;
     }
 
     private YamlConfiguration langYaml(Locale l) {
@@ -54,7 +151,7 @@ public class LangManager {
             try {
                 langResource = new InputStreamReader(plugin.getResource(filename));
             } catch (NullPointerException e) {
-                throw new Key("err.lang.missing_file").transErr(IllegalArgumentException.class, filename);
+                throw MISSING_FILE.transErr(IllegalArgumentException.class, filename);
             }
     
             return YamlConfiguration.loadConfiguration(langResource);
@@ -21,6 +21,9 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
 
 public class MenuManager implements Listener {
+    // translation keys, checked when the plugin is enabled
+    private static final Key INVSEE_TITLE = Key.of("cmd.invsee.title");
+
     private final MenuTree menuTree;
     private final Set<Inventory> readOnlyInvs = new HashSet<>();
 
@@ -39,7 +42,7 @@ public class MenuManager implements Listener {
     public void invSee(Player recipient, Player target) {
         int N_ROWS = 6,
             N_SLOTS = 9 * N_ROWS;
-        Inventory inv = Bukkit.createInventory(null, N_SLOTS, new Key("cmd.invsee.title").trans(target.getName()));
+        Inventory inv = Bukkit.createInventory(null, N_SLOTS, INVSEE_TITLE.trans(target.getName()));
         PlayerInventory targetInv = target.getInventory();
         ItemStack[] contents = new ItemStack[N_SLOTS],
                     targetContents = targetInv.getStorageContents();
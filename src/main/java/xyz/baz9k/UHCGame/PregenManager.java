@@ -0,0 +1,287 @@
+package xyz.baz9k.UHCGame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import net.kyori.adventure.text.format.NamedTextColor;
+import xyz.baz9k.UHCGame.util.Debug;
+
+import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
+
+/**
+ * Generates the chunks inside the initial world border before the game starts,
+ * so that they do not have to be generated while players are exploring.
+ * <p>
+ * Chunks are loaded asynchronously in a spiral from the center,
+ * with a limited number of chunks in flight at once (perf.pregen_concurrency)
+ * and no new chunks requested while the server TPS is under perf.pregen_min_tps.
+ * <p>
+ * Progress is saved to pregen.yml, so an interrupted pregeneration can resume as long as
+ * the world's seed and the initial border size have not changed.
+ */
+public class PregenManager {
+    // translation keys, checked when the plugin is enabled
+    private static final Key PREGEN_COMPLETE = Key.of("cmd.pregen.complete"),
+                             PREGEN_FAILED   = Key.of("cmd.pregen.failed"),
+                             PREGEN_BOSSBAR  = Key.of("pregen.bossbar");
+
+    /**
+     * Number of times a chunk which failed to load is requested again before pregeneration stops
+     */
+    private static final int CHUNK_RETRIES = 3;
+
+    private final UHCGamePlugin plugin;
+    private final File stateFile;
+    private final YamlConfiguration state;
+
+    private BukkitTask task;
+    private int ticks = 0;
+    private final Deque<WorldPregen> pending = new ArrayDeque<>();
+    private WorldPregen current;
+
+    /**
+     * Progress of pregenerating one world.
+     */
+    private final class WorldPregen {
+        private final World world;
+        private final long seed;
+        private final double diameter;
+        private final int total;
+
+        private final BitSet done = new BitSet();
+        /**
+         * Every chunk before this index in the spiral is generated
+         */
+        private int prefix;
+        /**
+         * The next chunk index to request
+         */
+        private int next;
+        private int inFlight = 0;
+        /**
+         * Chunk indices which failed to load and should be requested again
+         */
+        private final Deque<Integer> retries = new ArrayDeque<>();
+        /**
+         * Number of times each chunk index has failed to load
+         */
+        private final Map<Integer, Integer> failures = new HashMap<>();
+        /**
+         * A chunk index which failed to load more than {@link #CHUNK_RETRIES} times, or -1
+         */
+        private int failed = -1;
+
+        WorldPregen(World world, double diameter) {
+            this.world = world;
+            this.seed = world.getSeed();
+            this.diameter = diameter;
+            this.total = totalChunks(diameter);
+
+            this.prefix = this.next = savedProgress(world, diameter);
+        }
+
+        boolean isComplete() {
+            return prefix >= total;
+        }
+
+        /**
+         * Request chunks until the concurrency limit is hit
+         */
+        void dispatch(int concurrency) {
+            while (inFlight < concurrency && failed < 0 && (!retries.isEmpty() || next < total)) {
+                int i = retries.isEmpty() ? next++ : retries.poll();
+                int[] xz = spiral(i);
+                inFlight++;
+
+                world.getChunkAtAsync(xz[0], xz[1], true).whenComplete((c, err) -> {
+                    inFlight--;
+                    if (err != null) {
+                        // the chunk is not generated, so the prefix can't move past it
+                        Debug.printError(err);
+                        if (failures.merge(i, 1, Integer::sum) <= CHUNK_RETRIES) {
+                            retries.add(i);
+                        } else if (failed < 0) {
+                            failed = i;
+                        }
+                        return;
+                    }
+
+                    done.set(i);
+                    while (done.get(prefix)) prefix++;
+                });
+            }
+        }
+
+        /**
+         * Converts an index in the spiral into chunk coordinates.
+         * Ring d (the square of chunks at Chebyshev distance d) starts at index (2d - 1)^2.
+         */
+        int[] spiral(int i) {
+            if (i == 0) return new int[] {0, 0};
+            int d = (int) Math.ceil((Math.sqrt(i + 1) - 1) / 2);
+            int side = 2 * d;
+            int offset = i - (side - 1) * (side - 1);
+
+            // walk the ring: top edge, right edge, bottom edge, left edge
+            int edge = offset / side,
+                pos = offset % side;
+            return switch (edge) {
+                case 0  -> new int[] {-d + pos, -d};
+                case 1  -> new int[] { d, -d + pos};
+                case 2  -> new int[] { d - pos, d};
+                default -> new int[] {-d, d - pos};
+            };
+        }
+
+        void save() {
+            ConfigurationSection s = state.createSection(world.getName());
+            s.set("seed", seed);
+            s.set("diameter", diameter);
+            s.set("done", prefix);
+        }
+    }
+
+    public PregenManager(UHCGamePlugin plugin) {
+        this.plugin = plugin;
+        this.stateFile = new File(plugin.getDataFolder(), "pregen.yml");
+        this.state = YamlConfiguration.loadConfiguration(stateFile);
+    }
+
+    /**
+     * @param diameter Diameter of world border
+     * @return the radius in chunks around (0, 0) to pregenerate
+     */
+    private static int chunkRadius(double diameter) {
+        return (int) Math.ceil(diameter / 2 / 16);
+    }
+
+    private static int totalChunks(double diameter) {
+        int side = 2 * chunkRadius(diameter) + 1;
+        return side * side;
+    }
+
+    private double pregenDiameter() {
+        return plugin.configValues().timeline().first().wbDiameter();
+    }
+
+    /**
+     * @return the number of chunks of this world that are saved as generated (0 if the world or border has changed)
+     */
+    private int savedProgress(World w, double diameter) {
+        ConfigurationSection s = state.getConfigurationSection(w.getName());
+        if (s == null) return 0;
+        if (s.getLong("seed") != w.getSeed()) return 0;
+        if (s.getDouble("diameter") != diameter) return 0;
+
+        return s.getInt("done");
+    }
+
+    private void saveState() {
+        try {
+            state.save(stateFile);
+        } catch (IOException e) {
+            Debug.printError(e);
+        }
+    }
+
+    /**
+     * @return true if every game world is pregenerated for the current initial world border
+     */
+    public boolean isComplete() {
+        double diameter = pregenDiameter();
+        int total = totalChunks(diameter);
+
+        for (World w : plugin.getWorldManager().getGameWorlds()) {
+            if (savedProgress(w, diameter) < total) return false;
+        }
+        return true;
+    }
+
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    /**
+     * Starts (or resumes) pregenerating every game world.
+     */
+    public void start() {
+        if (isRunning()) return;
+
+        double diameter = pregenDiameter();
+        for (World w : plugin.getWorldManager().getGameWorlds()) {
+            WorldPregen wp = new WorldPregen(w, diameter);
+            if (!wp.isComplete()) pending.add(wp);
+        }
+        current = pending.poll();
+
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 0L, 1L);
+    }
+
+    /**
+     * Stops pregenerating, saving progress so it can be resumed later.
+     */
+    public void stop() {
+        if (!isRunning()) return;
+
+        task.cancel();
+        task = null;
+        if (current != null) current.save();
+        saveState();
+
+        current = null;
+        pending.clear();
+        plugin.getBossbarManager().hideProgress(Bukkit.getServer());
+    }
+
+    private void tick() {
+        var cfg = plugin.configValues();
+
+        // move onto the next world once this one is finished
+        while (current != null && current.isComplete()) {
+            current.save();
+            saveState();
+            current = pending.poll();
+        }
+
+        if (current == null) {
+            stop();
+            Bukkit.getServer().sendMessage(PREGEN_COMPLETE.trans().color(NamedTextColor.GREEN));
+            return;
+        }
+
+        if (current.failed >= 0) {
+            int[] xz = current.spiral(current.failed);
+            String worldName = current.world.getName();
+            stop();
+            Bukkit.getServer().sendMessage(PREGEN_FAILED.trans(worldName, xz[0], xz[1]).color(NamedTextColor.RED));
+            return;
+        }
+
+        if (Bukkit.getTPS()[0] >= cfg.pregenMinTPS()) {
+            current.dispatch(cfg.pregenConcurrency());
+        }
+
+        ticks++;
+        if (ticks % 100 == 0) {
+            current.save();
+            saveState();
+        }
+        if (ticks % 20 == 0) {
+            plugin.getBossbarManager().showProgress(Bukkit.getServer(),
+                PREGEN_BOSSBAR.trans(current.world.getName(), current.prefix, current.total),
+                (float) current.prefix / current.total
+            );
+        }
+    }
+}
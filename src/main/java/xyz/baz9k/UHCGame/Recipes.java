@@ -20,6 +20,7 @@ import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.ShapedRecipe;
 import org.jetbrains.annotations.NotNull;
 
+import xyz.baz9k.UHCGame.ConfigSnapshot.PlayerDrops;
 import xyz.baz9k.UHCGame.util.stack.StaticItemProperties;
 import xyz.baz9k.UHCGame.util.stack.TransItemStack;
 import xyz.baz9k.UHCGame.util.tag.BooleanTagType;
@@ -40,7 +41,7 @@ public final class Recipes {
 
     private enum EnableWhen {
         ALWAYS (c -> true),
-        PLAYER_DROPS_HEAD (c -> c.playerDropsIndex() == 2),
+        PLAYER_DROPS_HEAD (c -> c.playerDropsType() == PlayerDrops.PLAYER_HEAD),
         PROX_TRACK (ConfigValues::proxTrack);
 
         private Predicate<ConfigValues> pred;
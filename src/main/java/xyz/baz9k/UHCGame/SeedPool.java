@@ -0,0 +1,214 @@
+package xyz.baz9k.UHCGame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.block.Biome;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import xyz.baz9k.UHCGame.util.Debug;
+
+/**
+ * Keeps a pool of seeds which have already been checked with {@link WorldManager#isGoodBiome},
+ * so that reseeding does not have to regenerate the game world until it finds a good seed.
+ * <p>
+ * Between games, while no players are online, seeds are vetted one at a time by generating the spawn chunk in a throwaway world.
+ * Accepted seeds are saved to seeds.yml along with how they were vetted.
+ */
+public class SeedPool {
+    private final UHCGamePlugin plugin;
+    private final File poolFile;
+    private final List<VettedSeed> seeds = new ArrayList<>();
+
+    /**
+     * Prefix of the names of the throwaway worlds
+     */
+    private static final String VET_WORLD = "uhc_seed_vet_";
+    private BukkitTask task;
+    private boolean vetting = false;
+    private final Random random = new Random();
+
+    /**
+     * A seed which passed vetting.
+     * @param seed The seed
+     * @param biome The biome found at spawn
+     * @param version The Minecraft version the seed was vetted on
+     * @param vetted When the seed was vetted
+     */
+    public record VettedSeed(long seed, Biome biome, String version, Instant vetted) {
+        private Map<String, Object> serialize() {
+            return Map.of(
+                "seed", seed,
+                "biome", biome.name(),
+                "version", version,
+                "vetted", vetted.toString()
+            );
+        }
+
+        private static VettedSeed deserialize(Map<?, ?> m) {
+            return new VettedSeed(
+                ((Number) m.get("seed")).longValue(),
+                Biome.valueOf((String) m.get("biome")),
+                (String) m.get("version"),
+                Instant.parse((String) m.get("vetted"))
+            );
+        }
+    }
+
+    public SeedPool(UHCGamePlugin plugin) {
+        this.plugin = plugin;
+        this.poolFile = new File(plugin.getDataFolder(), "seeds.yml");
+        load();
+    }
+
+    private void load() {
+        var yml = YamlConfiguration.loadConfiguration(poolFile);
+        String version = Bukkit.getMinecraftVersion();
+
+        for (Map<?, ?> m : yml.getMapList("seeds")) {
+            try {
+                VettedSeed s = VettedSeed.deserialize(m);
+                // world generation can change between versions, so these seeds cannot be trusted
+                if (s.version().equals(version)) seeds.add(s);
+            } catch (RuntimeException e) {
+                Debug.printError(e);
+            }
+        }
+    }
+
+    private void save() {
+        var yml = new YamlConfiguration();
+        yml.set("seeds", seeds.stream().map(VettedSeed::serialize).toList());
+        try {
+            yml.save(poolFile);
+        } catch (IOException e) {
+            Debug.printError(e);
+        }
+    }
+
+    /**
+     * @return the number of vetted seeds in the pool
+     */
+    public int size() {
+        return seeds.size();
+    }
+
+    /**
+     * Removes a vetted seed from the pool.
+     * @return the seed, or empty if the pool is empty
+     */
+    public OptionalLong take() {
+        if (seeds.isEmpty()) return OptionalLong.empty();
+
+        VettedSeed s = seeds.remove(0);
+        save();
+        Debug.printDebug(String.format("Using pooled seed %s (%s, vetted %s)", s.seed(), s.biome(), s.vetted()));
+        return OptionalLong.of(s.seed());
+    }
+
+    /**
+     * Starts vetting seeds whenever the pool is not full and the server is empty.
+     */
+    public void start() {
+        if (task != null) return;
+
+        // throwaway worlds left over from a crash
+        File[] leftovers = Bukkit.getWorldContainer().listFiles(f -> f.isDirectory() && f.getName().startsWith(VET_WORLD));
+        if (leftovers != null) {
+            for (File f : leftovers) deleteFolder(f.toPath());
+        }
+
+        long period = 20L * plugin.configValues().seedVetInterval().toSeconds();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tryVet, period, Math.max(1, period));
+    }
+
+    public void stop() {
+        if (task != null) task.cancel();
+        task = null;
+    }
+
+    private void tryVet() {
+        var cfg = plugin.configValues();
+        if (vetting) return;
+        if (seeds.size() >= cfg.seedPoolSize()) return;
+        if (plugin.getGameManager().hasUHCStarted()) return;
+        // creating the world stalls the main thread, so only vet when nobody is around to notice
+        if (!Bukkit.getOnlinePlayers().isEmpty()) return;
+        if (plugin.getPregenManager().isRunning()) return;
+        if (Bukkit.getTPS()[0] < cfg.pregenMinTPS()) return;
+
+        vet(random.nextLong());
+    }
+
+    /**
+     * Checks a seed by generating its spawn chunk in a throwaway world, and adds it to the pool if it's good.
+     * @param seed Seed to check
+     */
+    private void vet(long seed) {
+        vetting = true;
+        Debug.printDebug(String.format("Vetting seed %s", seed));
+
+        long t0 = System.nanoTime();
+        World w = new WorldCreator(VET_WORLD + Long.toUnsignedString(seed, 36))
+            .seed(seed)
+            .environment(World.Environment.NORMAL)
+            .createWorld(); // spawn chunks are not kept loaded, see WorldManager#onWorldInit
+        Debug.printDebug(String.format("Created vetting world in %.1f ms", (System.nanoTime() - t0) / 1e6));
+
+        if (w == null) {
+            vetting = false;
+            return;
+        }
+
+        w.getChunkAtAsync(0, 0, true).whenComplete((c, err) -> {
+            try {
+                if (err != null) {
+                    Debug.printError(err);
+                    return;
+                }
+
+                Biome b = plugin.getWorldManager().spawnBiome(w);
+                if (WorldManager.isGoodBiome(b)) {
+                    seeds.add(new VettedSeed(seed, b, Bukkit.getMinecraftVersion(), Instant.now()));
+                    save();
+                    Debug.printDebug(String.format("Accepted seed %s (%s)", seed, b));
+                } else {
+                    Debug.printDebug(String.format("Rejected seed %s (%s)", seed, b));
+                }
+            } finally {
+                discardVetWorld(w);
+                vetting = false;
+            }
+        });
+    }
+
+    private void discardVetWorld(World w) {
+        Path folder = w.getWorldFolder().toPath();
+        if (!Bukkit.unloadWorld(w, false)) return;
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> deleteFolder(folder));
+    }
+
+    private static void deleteFolder(Path folder) {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder())
+                .forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            Debug.printError(e);
+        }
+    }
+}
@@ -5,18 +5,26 @@ import static xyz.baz9k.UHCGame.util.Utils.*;
 import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 
 public class SpreadPlayersManager {
+    // translation keys, checked when the plugin is enabled
+    private static final Key POINTS_GENERATED    = Key.of("debug.spreadplayers.generated"),
+                             MISSING_SPREAD_LOCS = Key.of("err.world.missing_spread_locs");
+
     private final UHCGamePlugin plugin;
+    private static final int TELEPORT_BATCH_SIZE = 8;
 
     public SpreadPlayersManager(UHCGamePlugin plugin) {
         this.plugin = plugin;
@@ -99,17 +107,61 @@ public class SpreadPlayersManager {
         }, def);
     }
 
-    private List<Location> getRootsOfUnityLocations(Location center, int numLocations, double distance) {
+    /**
+     * Loads the chunks containing some points asynchronously, then gets the highest location at each point.
+     * <p>
+     * Each chunk holds a plugin ticket from when it loads until the locations have been read,
+     * so a chunk which loaded early can't unload while the others are loading.
+     * @param w World of points
+     * @param points Points, packed as [x0, z0, x1, z1, ...]
+     * @param from Index of first point
+     * @param to Index after last point
+     * @return a future which completes on the main thread with the highest location at each point
+     */
+    private CompletableFuture<List<Location>> loadHighestLocs(World w, double[] points, int from, int to) {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Chunk>[] chunks = new CompletableFuture[to - from];
+        for (int i = from; i < to; i++) {
+            int bx = (int) Math.floor(points[2 * i]),
+                bz = (int) Math.floor(points[2 * i + 1]);
+            chunks[i - from] = w.getChunkAtAsync(bx >> 4, bz >> 4, true).thenApply(c -> {
+                c.addPluginChunkTicket(plugin);
+                return c;
+            });
+        }
+
+        return CompletableFuture.allOf(chunks).handle((v, err) -> {
+            try {
+                if (err != null) throw err instanceof CompletionException ce ? ce : new CompletionException(err);
+
+                // the chunks are held loaded, so this does not block
+                List<Location> locs = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    locs.add(getHighestLoc(w, points[2 * i], points[2 * i + 1]));
+                }
+                return locs;
+            } finally {
+                for (CompletableFuture<Chunk> c : chunks) {
+                    if (!c.isCompletedExceptionally()) c.join().removePluginChunkTicket(plugin);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<List<Location>> getRootsOfUnityLocations(Location center, int numLocations, double distance) {
         Point2D center2 = Point2D.fromLocation(center);
-        List<Location> locations = new ArrayList<>();
-        World w = center.getWorld();
+        double[] points = new double[2 * numLocations];
         for (int i = 0; i < numLocations; i++) {
             double theta = i * 2 * Math.PI / numLocations;
             Point2D newPt = center2.addPolar(distance, theta);
-            locations.add(getHighestLoc(w, newPt));
+            points[2 * i] = newPt.x();
+            points[2 * i + 1] = newPt.z();
         }
-        Collections.shuffle(locations);
-        return Collections.unmodifiableList(locations);
+
+        return loadHighestLocs(center.getWorld(), points, 0, numLocations).thenApply(locations -> {
+            Collections.shuffle(locations);
+            return Collections.unmodifiableList(locations);
+        });
     }
 
     private static final Set<Material> unspawnableMats = Set.of(
@@ -131,91 +183,190 @@ public class SpreadPlayersManager {
         return avoidMats.contains(ground);
     }
 
-    //poisson disk sampling https://www.cs.ubc.ca/~rbridson/docs/bridson-siggraph07-poissondisk.pdf
-    private static List<Location> getRandomLocations(Location center, int numLocations, double sideLength, double minSeparation) {
-        Point2D center2 = Point2D.fromLocation(center);
-        List<Point2D> samples = new ArrayList<>();
-        List<Point2D> activeList = new ArrayList<>();
-        Random r = new Random();
-        World w = center.getWorld();
-
+    /**
+     * Poisson disk sampling over a square (https://www.cs.ubc.ca/~rbridson/docs/bridson-siggraph07-poissondisk.pdf).
+     * <p>
+     * Accepted samples are stored in a background grid with cells of side minSeparation/√2,
+     * so each cell holds at most one sample and only the 5x5 cells around a candidate need to be checked.
+     * @param center Center of square
+     * @param sideLength Side length of square
+     * @param minSeparation Minimum distance between samples
+     * @param r Random number generator
+     * @return the samples, packed as [x0, z0, x1, z1, ...]
+     */
+    private static double[] poissonDisk(Point2D center, double sideLength, double minSeparation, Random r) {
         final int POINTS_PER_ITER = 30;
-        
-        Point2D firstLocation = Point2D.uniformRand(center2, sideLength);
-        activeList.add(firstLocation);
-        samples.add(firstLocation);
-
-        makeTestPoint: while (!activeList.isEmpty()) {
-            int index = r.nextInt(activeList.size());
-            Point2D search = activeList.get(index);
 
+        double minX = center.x() - sideLength / 2,
+               minZ = center.z() - sideLength / 2;
+        double minSep2 = minSeparation * minSeparation;
+
+        double cellSize = minSeparation / Math.sqrt(2);
+        int gridSide = Math.max(1, (int) Math.ceil(sideLength / cellSize));
+        int[] grid = new int[gridSide * gridSide]; // (index of sample in cell) + 1, or 0 if empty
+
+        double[] samples = new double[32];
+        int nSamples = 0;
+        int[] active = new int[16];
+        int nActive = 0;
+
+        // first sample
+        samples[0] = minX + r.nextDouble() * sideLength;
+        samples[1] = minZ + r.nextDouble() * sideLength;
+        grid[cellOf(samples[0], minX, cellSize, gridSide) + gridSide * cellOf(samples[1], minZ, cellSize, gridSide)] = 1;
+        nSamples = 1;
+        active[nActive++] = 0;
+
+        while (nActive > 0) {
+            int ai = r.nextInt(nActive);
+            int search = active[ai];
+            double sx = samples[2 * search],
+                   sz = samples[2 * search + 1];
+
+            boolean accepted = false;
             testPoints: for (int i = 0; i < POINTS_PER_ITER; i++) {
-                Point2D testPoint = Point2D.ringRand(search, minSeparation, 2 * minSeparation);
+                // uniform in the annulus between minSeparation and 2 * minSeparation
+                double theta = r.nextDouble() * 2 * Math.PI;
+                double rad = Math.sqrt(minSep2 + r.nextDouble() * 3 * minSep2);
+                double x = sx + rad * Math.cos(theta),
+                       z = sz + rad * Math.sin(theta);
                 
                 // if not in square, then drop
-                if (!testPoint.inSquare(center2, sideLength)) continue;
+                if (!(minX < x && x < minX + sideLength && minZ < z && z < minZ + sideLength)) continue;
 
                 // if there's a point that's too close, then drop
-                for (Point2D s : samples) {
-                    if (s.dist(testPoint) < minSeparation) continue testPoints;
+                int gx = cellOf(x, minX, cellSize, gridSide),
+                    gz = cellOf(z, minZ, cellSize, gridSide);
+                for (int nz = Math.max(0, gz - 2); nz <= Math.min(gridSide - 1, gz + 2); nz++) {
+                    for (int nx = Math.max(0, gx - 2); nx <= Math.min(gridSide - 1, gx + 2); nx++) {
+                        int j = grid[nx + gridSide * nz] - 1;
+                        if (j < 0) continue;
+
+                        double dx = samples[2 * j] - x,
+                               dz = samples[2 * j + 1] - z;
+                        if (dx * dx + dz * dz < minSep2) continue testPoints;
+                    }
                 }
 
-                if (isLocationUnspawnable(getHighestLoc(w, testPoint))) continue;
+                if (2 * nSamples + 2 > samples.length) samples = Arrays.copyOf(samples, samples.length * 2);
+                if (nActive == active.length) active = Arrays.copyOf(active, active.length * 2);
 
-                activeList.add(testPoint);
-                samples.add(testPoint);
-                continue makeTestPoint;
+                samples[2 * nSamples] = x;
+                samples[2 * nSamples + 1] = z;
+                grid[gx + gridSide * gz] = nSamples + 1;
+                active[nActive++] = nSamples;
+                nSamples++;
+
+                accepted = true;
+                break;
             }
 
-            activeList.remove(index);
+            if (!accepted) active[ai] = active[--nActive];
         }
 
-        Debug.printDebug(new Key("debug.spreadplayers.generated").trans(samples.size()));
+        return Arrays.copyOf(samples, 2 * nSamples);
+    }
 
-        if (samples.size() < numLocations) {
-            throw new Key("err.world.missing_spread_locs").transErr(IllegalStateException.class, samples.size(), numLocations);
-        }
+    private static int cellOf(double v, double min, double cellSize, int gridSide) {
+        return Math.min(gridSide - 1, (int) ((v - min) / cellSize));
+    }
 
-        Map<Boolean, List<Location>> spawns =
-        samples.stream()
-            .map(p -> getHighestLoc(w, p))
-            .collect(Collectors.partitioningBy(SpreadPlayersManager::isLocationAvoidSpawn));
+    private CompletableFuture<List<Location>> getRandomLocations(Location center, int numLocations, double sideLength, double minSeparation) {
+        World w = center.getWorld();
+        Random r = new Random();
 
+        double[] samples = poissonDisk(Point2D.fromLocation(center), sideLength, minSeparation, r);
+        int nSamples = samples.length / 2;
+        Debug.printDebug(POINTS_GENERATED.trans(nSamples));
+
+        // check spawnability of samples in random order, only until we have enough
+        for (int i = nSamples - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            double tx = samples[2 * i], tz = samples[2 * i + 1];
+            samples[2 * i] = samples[2 * j];
+            samples[2 * i + 1] = samples[2 * j + 1];
+            samples[2 * j] = tx;
+            samples[2 * j + 1] = tz;
+        }
 
-        List<Location> spawnableLocations = spawns.get(false);
-        List<Location> avoidLocations = spawns.get(true);
-        
+        return validateLocations(w, samples, 0, numLocations, new ArrayList<>(), new ArrayList<>())
+            .thenApply(spawnableLocations -> {
+                Collections.shuffle(spawnableLocations, r);
+                return Collections.unmodifiableList(spawnableLocations);
+            });
+    }
 
-        if (spawnableLocations.size() < numLocations) {
-            int numAvoidLocations = numLocations - spawnableLocations.size();
-            Collections.shuffle(avoidLocations);
-            spawnableLocations.addAll(avoidLocations.subList(0, numAvoidLocations));
+    /**
+     * Checks the spawnability of samples, a batch of samples at a time (loading each batch's chunks asynchronously),
+     * until there are enough spawnable locations or the samples run out.
+     * @param w World of samples
+     * @param samples Samples, packed as [x0, z0, x1, z1, ...]
+     * @param from Index of the first sample that has not been checked yet
+     * @param numLocations Number of locations needed
+     * @param spawnableLocations Locations found so far which are spawnable
+     * @param avoidLocations Locations found so far which should be avoided
+     * @return a future which completes on the main thread with numLocations locations
+     */
+    private CompletableFuture<List<Location>> validateLocations(World w, double[] samples, int from, int numLocations, List<Location> spawnableLocations, List<Location> avoidLocations) {
+        int nSamples = samples.length / 2;
+        int needed = numLocations - spawnableLocations.size();
+
+        if (needed <= 0 || from >= nSamples) {
+            if (spawnableLocations.size() + avoidLocations.size() < numLocations) {
+                return CompletableFuture.failedFuture(
+                    MISSING_SPREAD_LOCS.transErr(IllegalStateException.class, spawnableLocations.size() + avoidLocations.size(), numLocations)
+                );
+            }
+
+            if (spawnableLocations.size() < numLocations) {
+                int numAvoidLocations = numLocations - spawnableLocations.size();
+                spawnableLocations.addAll(avoidLocations.subList(0, numAvoidLocations));
+            }
+            return CompletableFuture.completedFuture(new ArrayList<>(spawnableLocations.subList(0, numLocations)));
         }
 
-        Collections.shuffle(spawnableLocations);
-        return Collections.unmodifiableList(spawnableLocations.subList(0, numLocations));
+        // overshoot a bit, since some of the batch will be unspawnable
+        int to = Math.min(nSamples, from + Math.max(8, 2 * needed));
+        return loadHighestLocs(w, samples, from, to).thenCompose(locs -> {
+            for (Location l : locs) {
+                if (isLocationUnspawnable(l.clone())) continue;
+                if (isLocationAvoidSpawn(l.clone())) {
+                    avoidLocations.add(l);
+                } else {
+                    spawnableLocations.add(l);
+                }
+            }
 
+            return validateLocations(w, samples, to, numLocations, spawnableLocations, avoidLocations);
+        });
     }
 
     /**
      * Spreads players to a list of locations by the given generator
      * @param grouping Should teams be separated together?
-     * @param locGenerator Takes in int n, returns a list of locations of size n
+     * @param locGenerator Takes in int n, returns a future of a list of locations of size n
+     * @return a future which completes on the main thread once every player has been teleported
      */
-    private void spreadPlayers(Grouping grouping, IntFunction<List<Location>> locGenerator) {
+    private CompletableFuture<Void> spreadPlayers(Grouping grouping, IntFunction<CompletableFuture<List<Location>>> locGenerator) {
         var def = grouping.def();
-        
         var groups = grouping.groups(plugin);
-        var locs = locGenerator.apply(groups.size());
-        
-        var groupIter = groups.iterator();
-        var locsIter = locs.iterator();
-        
-        if (def != null) {
-            teleportGroup(Bukkit.getOnlinePlayers(), def);
-        }
 
-        while (groupIter.hasNext() && locsIter.hasNext()) teleportGroup(groupIter.next(), locsIter.next());
+        return locGenerator.apply(groups.size()).thenCompose(locs -> {
+            // each player is teleported once, to their group's location if they have one, and otherwise to def
+            Map<Player, Location> destinations = new LinkedHashMap<>();
+            if (def != null) {
+                for (Player p : Bukkit.getOnlinePlayers()) destinations.put(p, def);
+            }
+
+            var groupIter = groups.iterator();
+            var locsIter = locs.iterator();
+            while (groupIter.hasNext() && locsIter.hasNext()) {
+                Location l = locsIter.next();
+                for (Player p : groupIter.next()) destinations.put(p, l);
+            }
+
+            return teleportInBatches(new ArrayList<>(destinations.entrySet()), 0);
+        });
     }
 
     /**
@@ -224,9 +375,10 @@ public class SpreadPlayersManager {
      * @param center Center of spread radius
      * @param maximumRange Maximum spread (diameter)
      * @param minSeparation Minimum separation between groups
+     * @return a future which completes on the main thread once every player has been teleported
      */
-    public void random(Grouping grouping, Location center, double maximumRange, double minSeparation) {
-        spreadPlayers(grouping, n -> getRandomLocations(center, n, maximumRange, minSeparation));
+    public CompletableFuture<Void> random(Grouping grouping, Location center, double maximumRange, double minSeparation) {
+        return spreadPlayers(grouping, n -> getRandomLocations(center, n, maximumRange, minSeparation));
     }
 
     /**
@@ -234,13 +386,27 @@ public class SpreadPlayersManager {
      * @param grouping Grouping designating which groups of players are teleported together
      * @param center Center of spread radius
      * @param distance Distance from center to spread
+     * @return a future which completes on the main thread once every player has been teleported
      */
-    public void rootsOfUnity(Grouping grouping, Location center, double distance) {
-        spreadPlayers(grouping, n -> getRootsOfUnityLocations(center, n, distance));
+    public CompletableFuture<Void> rootsOfUnity(Grouping grouping, Location center, double distance) {
+        return spreadPlayers(grouping, n -> getRootsOfUnityLocations(center, n, distance));
     }
 
-    private void teleportGroup(Collection<? extends Player> group, Location location) {
-        for (Player p : group) p.teleport(location);
+    /**
+     * Teleports players asynchronously, {@link #TELEPORT_BATCH_SIZE} at a time
+     * @param destinations Players and where they should be teleported to
+     * @param from Index of the first teleport that has not been started
+     * @return a future which completes once every teleport has completed
+     */
+    private CompletableFuture<Void> teleportInBatches(List<Map.Entry<Player, Location>> destinations, int from) {
+        if (from >= destinations.size()) return CompletableFuture.completedFuture(null);
+
+        int to = Math.min(destinations.size(), from + TELEPORT_BATCH_SIZE);
+        CompletableFuture<?>[] batch = destinations.subList(from, to).stream()
+            .map(e -> e.getKey().teleportAsync(e.getValue()))
+            .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(batch).thenCompose(v -> teleportInBatches(destinations, to));
     }
 
 }
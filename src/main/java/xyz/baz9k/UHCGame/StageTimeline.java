@@ -0,0 +1,98 @@
+package xyz.baz9k.UHCGame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
+
+/**
+ * The stages of the game, compiled from the timeline in config.
+ * <p>
+ * Stages with a duration of zero are skipped. The last stage is deathmatch, which lasts until the game ends.
+ * <p>
+ * Each stage's duration (in ticks) and border keyframe (target diameter, and whether the border jumps there or moves there over the stage)
+ * are computed when the timeline is compiled, so checking the stage during the game does not read config.
+ */
+public final class StageTimeline {
+    // translation keys, checked when the plugin is enabled
+    private static final Key EMPTY = Key.of("err.timeline.empty");
+
+    private final GameStage[] stages;
+    private final Map<String, GameStage> byName = new HashMap<>();
+
+    private StageTimeline(List<ConfigSnapshot.StageSpec> specs) {
+        List<ConfigSnapshot.StageSpec> active = new ArrayList<>();
+        for (var spec : specs) {
+            boolean skipped = spec.duration().map(d -> d.isZero()).orElse(false);
+            if (!skipped) active.add(spec);
+        }
+        if (active.isEmpty()) {
+            throw EMPTY.transErr(IllegalArgumentException.class);
+        }
+
+        stages = new GameStage[active.size()];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new GameStage(this, i, active.get(i));
+            byName.putIfAbsent(stages[i].name(), stages[i]);
+        }
+    }
+
+    /**
+     * Compiles the timeline in a config snapshot.
+     * @param cfg the snapshot
+     * @return the timeline
+     */
+    public static StageTimeline compile(ConfigSnapshot cfg) {
+        return new StageTimeline(cfg.timeline());
+    }
+
+    /**
+     * @return the number of stages
+     */
+    public int size() {
+        return stages.length;
+    }
+
+    /**
+     * @param i index
+     * @return the stage at the index, or null if there is no stage there
+     */
+    public @Nullable GameStage get(int i) {
+        if (i < 0 || i >= stages.length) return null;
+        return stages[i];
+    }
+
+    /**
+     * @return the first stage
+     */
+    public GameStage first() {
+        return stages[0];
+    }
+
+    /**
+     * @return the last stage (deathmatch)
+     */
+    public GameStage last() {
+        return stages[stages.length - 1];
+    }
+
+    /**
+     * @param name name of stage
+     * @return the stage with that name, or null if there is none
+     */
+    public @Nullable GameStage byName(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @return the names of the stages, in order
+     */
+    public String[] names() {
+        return Arrays.stream(stages).map(GameStage::name).toArray(String[]::new);
+    }
+}
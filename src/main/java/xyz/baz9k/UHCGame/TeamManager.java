@@ -10,17 +10,18 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import xyz.baz9k.UHCGame.ConfigSnapshot.HideTeams;
 import xyz.baz9k.UHCGame.ConfigValues.BossMode;
+import xyz.baz9k.UHCGame.event.LastGroupStandingEvent;
 import xyz.baz9k.UHCGame.event.PlayerStateChangeEvent;
+import xyz.baz9k.UHCGame.event.TeamEliminatedEvent;
 import xyz.baz9k.UHCGame.exception.UHCException;
 import xyz.baz9k.UHCGame.util.TeamDisplay;
 
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
 
@@ -28,46 +29,71 @@ import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Random;
 
 public class TeamManager {
+    // translation keys, checked when the plugin is enabled
+    private static final Key BOSS_MUST_2        = Key.of("err.team.boss_must_2"),
+                             INVALID_TEAM       = Key.of("err.team.invalid"),
+                             MUST_ASSIGNED_COMB = Key.of("err.team.must_assigned_comb"),
+                             SIZE_NAME_INVALID  = Key.of("err.team.size_name_invalid");
+
     private record Node(PlayerState state, int team) {
         public Node {
             if (!state.isAssignedCombatant()) team = 0;
         }
     }
 
+    /**
+     * A snapshot of a set of players (by UUID).
+     * Players are only looked up when iterated or resolved.
+     */
     public class UnresolvedPlayerSet extends AbstractSet<OfflinePlayer> {
-        private Set<OfflinePlayer> pSet;
-        private UnresolvedPlayerSet(Set<OfflinePlayer> pSet) {
-            this.pSet = pSet;
+        private final Set<UUID> uuids;
+        private UnresolvedPlayerSet(Set<UUID> uuids) {
+            this.uuids = uuids;
         }
 
         @Override
         public Iterator<OfflinePlayer> iterator() {
-            return pSet.iterator();
+            Iterator<UUID> it = uuids.iterator();
+            return new Iterator<>() {
+                public boolean hasNext() { return it.hasNext(); }
+                public OfflinePlayer next() { return Bukkit.getOfflinePlayer(it.next()); }
+            };
         }
 
         @Override
         public int size() {
-            return pSet.size();
+            return uuids.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof OfflinePlayer op && uuids.contains(op.getUniqueId());
+        }
+
+        /**
+         * @return the UUIDs of the players in this set
+         */
+        public Set<UUID> uuids() {
+            return Collections.unmodifiableSet(uuids);
         }
 
         private Set<Player> resolveOfflines(Function<UUID, Player> resolver) {
-            return this.stream()
-                .map(op -> {
-                    Player p = op.getPlayer();
-                    if (p != null) return p;
-                    return resolver.apply(op.getUniqueId());
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+            Set<Player> players = new HashSet<>(uuids.size());
+            for (UUID uuid : uuids) {
+                Player p = Bukkit.getPlayer(uuid);
+                if (p == null) p = resolver.apply(uuid);
+                if (p != null) players.add(p);
+            }
+            return players;
         }
 
         public Set<Player> online() { return resolveOfflines(u -> null); }
@@ -80,8 +106,56 @@ public class TeamManager {
     private final HashMap<UUID, Node> playerMap = new HashMap<>();
     private final HashMap<UUID, Player> cachedPlayers = new HashMap<>();
 
+    // indexes of playerMap, kept up to date by putNode
+    private final EnumMap<PlayerState, Set<UUID>> stateIndex = new EnumMap<>(PlayerState.class);
+    /**
+     * Assigned combatants by team (wildcards are on team 0)
+     */
+    private final HashMap<Integer, Set<UUID>> teamIndex = new HashMap<>();
+    /**
+     * Number of alive combatants on each team with any alive combatants (excludes wildcards)
+     */
+    private final HashMap<Integer, Integer> aliveOnTeam = new HashMap<>();
+    private int aliveWildcards = 0;
+
     public TeamManager(UHCGamePlugin plugin) {
         this.plugin = plugin;
+        for (PlayerState s : PlayerState.values()) stateIndex.put(s, new HashSet<>());
+    }
+
+    /**
+     * Sets the node of a player in the player map, and updates the indexes.
+     * @param uuid UUID of player
+     * @param n New node
+     */
+    private void putNode(@NotNull UUID uuid, @NotNull Node n) {
+        Node old = playerMap.put(uuid, n);
+        if (old != null) {
+            if (old.state() == PlayerState.COMBATANT_ALIVE) countAlive(old.team(), -1);
+            stateIndex.get(old.state()).remove(uuid);
+            if (old.state().isAssignedCombatant()) {
+                Set<UUID> team = teamIndex.get(old.team());
+                team.remove(uuid);
+                if (team.isEmpty()) teamIndex.remove(old.team());
+            }
+        }
+
+        if (n.state() == PlayerState.COMBATANT_ALIVE) countAlive(n.team(), 1);
+        stateIndex.get(n.state()).add(uuid);
+        if (n.state().isAssignedCombatant()) {
+            teamIndex.computeIfAbsent(n.team(), k -> new HashSet<>()).add(uuid);
+        }
+    }
+
+    private void countAlive(int t, int delta) {
+        if (t == 0) {
+            aliveWildcards += delta;
+            return;
+        }
+        aliveOnTeam.compute(t, (k, c) -> {
+            int count = (c == null ? 0 : c) + delta;
+            return count == 0 ? null : count;
+        });
     }
 
     /**
@@ -92,10 +166,15 @@ public class TeamManager {
      * @return the node
      */
     private @NotNull Node getNode(@NotNull Player p) {
-        cachedPlayers.put(p.getUniqueId(), p);
-        return playerMap.computeIfAbsent(p.getUniqueId(), 
-            k -> new Node(PlayerState.COMBATANT_UNASSIGNED, 0)
-        );
+        UUID uuid = p.getUniqueId();
+        cachedPlayers.put(uuid, p);
+
+        Node n = playerMap.get(uuid);
+        if (n == null) {
+            n = new Node(PlayerState.COMBATANT_UNASSIGNED, 0);
+            putNode(uuid, n);
+        }
+        return n;
     }
 
     public void addPlayer(@NotNull Player p, boolean hasStarted) {
@@ -109,16 +188,32 @@ public class TeamManager {
     private Node setNode(@NotNull Player p, @NotNull PlayerState s, int t, boolean callEvent) {
         Node oldNode = getNode(p);
         Node newNode = new Node(s, t);
-        playerMap.put(p.getUniqueId(), newNode);
+        putNode(p.getUniqueId(), newNode);
         if (callEvent && p.isOnline() && oldNode != newNode) {
             new PlayerStateChangeEvent(p, s, t).callEvent();
         }
+        if (callEvent && oldNode.state() == PlayerState.COMBATANT_ALIVE && s != PlayerState.COMBATANT_ALIVE) {
+            callEliminationEvents(oldNode.team());
+        }
         return getNode(p);
     }
     private Node setNode(@NotNull Player p, @NotNull PlayerState s, int t) {
         return setNode(p, s, t, true);
     }
 
+    /**
+     * Calls the events for a group losing an alive combatant.
+     * @param t Team of the combatant that is no longer alive
+     */
+    private void callEliminationEvents(int t) {
+        // wildcards are groups of one, so they are always eliminated
+        boolean groupEliminated = t == 0 || isTeamEliminated(t);
+        if (!groupEliminated) return;
+
+        if (t != 0) new TeamEliminatedEvent(t).callEvent();
+        if (getNumAliveGroups() == 1) new LastGroupStandingEvent(getAliveGroups()[0]).callEvent();
+    }
+
     private Node setState(@NotNull Player p, @NotNull PlayerState s) {
         Node n = getNode(p);
         return setNode(p, s, n.team());
@@ -156,7 +251,7 @@ public class TeamManager {
      * @param bounded Bound the team to the number of teams allowed. If true, an IllegalArgumentException will occur if bound is not met.
      */
     public void assignPlayerToTeam(@NotNull Player p, int t, boolean bounded) {
-        var invalidExc = new Key("err.team.invalid").transErr(IllegalArgumentException.class);
+        var invalidExc = INVALID_TEAM.transErr(IllegalArgumentException.class);
 
         if (t < 0) throw invalidExc;
         if (bounded && t > numTeams) {
@@ -181,7 +276,10 @@ public class TeamManager {
             setNode(p, PlayerState.COMBATANT_UNASSIGNED, 0);
         }
 
-        playerMap.replaceAll((k, v) -> new Node(PlayerState.COMBATANT_UNASSIGNED, 0));
+        Node unassigned = new Node(PlayerState.COMBATANT_UNASSIGNED, 0);
+        for (UUID uuid : List.copyOf(playerMap.keySet())) {
+            putNode(uuid, unassigned);
+        }
     }
 
     private void shuffleAssign(List<Player> combatants, int first, int last) {
@@ -233,7 +331,7 @@ public class TeamManager {
 
         if (boss.enabled()) {
             // boss team shuffling
-            boolean t1Assigned = IntStream.of(getAliveTeams()).anyMatch(t -> t == 1);
+            boolean t1Assigned = aliveOnTeam.containsKey(1);
 
             List<Player> combatantsToAssign;
             if (t1Assigned) {
@@ -266,17 +364,14 @@ public class TeamManager {
 
 
         // set numTeams to actual number of teams
-        numTeams = getAliveTeams().length;
+        numTeams = getNumAliveTeams();
     }
 
     public void announceTeams() {
-        int hideTeams = plugin.configValues().hideTeams();
+        var hideTeams = plugin.configValues().hideTeams();
         var boss = plugin.configValues().bossMode();
 
-        // 0: Display all teams
-        // 1: Display only your team
-        // 2: Do not display teams
-        if (hideTeams != 0) return;
+        if (hideTeams != HideTeams.SHOW_ALL) return;
         
         int i;
         if (boss.enabled()) {
@@ -304,7 +399,7 @@ public class TeamManager {
         if (s.isAssignedCombatant()) {
             players = getCombatantsOnTeam(t);
         } else {
-            players = getAllPlayersMatching(n -> n.state == s && n.team == t).online();
+            players = playersIn(s).online();
         }
         if (players.size() == 0) return;
 
@@ -335,7 +430,7 @@ public class TeamManager {
         var boss = plugin.configValues().bossMode();
         if (boss.enabled() && numTeams < 2) {
             resetAllPlayers();
-            throw new UHCException(new Key("err.team.boss_must_2"));
+            throw new UHCException(BOSS_MUST_2);
         }
         
         // announce teams if valid
@@ -357,7 +452,7 @@ public class TeamManager {
      */
     public void setCombatantAliveStatus(@NotNull Player p, boolean alive) {
         if (!isAssignedCombatant(p)) {
-            throw new Key("err.team.must_assigned_comb").transErr(IllegalArgumentException.class);
+            throw MUST_ASSIGNED_COMB.transErr(IllegalArgumentException.class);
         }
 
         PlayerState s = alive ? PlayerState.COMBATANT_ALIVE : PlayerState.COMBATANT_DEAD;
@@ -366,47 +461,63 @@ public class TeamManager {
 
     /* LIST OF PLAYERS */
     
-    private UnresolvedPlayerSet getAllPlayersMatching(Predicate<Node> predicate) {
-        Set<OfflinePlayer> pSet = playerMap.entrySet().stream()
-            .filter(e -> predicate.test(e.getValue()))
-            .map(e -> Bukkit.getOfflinePlayer(e.getKey()))
-            .collect(Collectors.toSet());
-        
-        return new UnresolvedPlayerSet(pSet);
+    /**
+     * @param states States to include
+     * @return a snapshot of all players in any of the specified states
+     */
+    private UnresolvedPlayerSet playersIn(PlayerState... states) {
+        if (states.length == 1) return new UnresolvedPlayerSet(Set.copyOf(stateIndex.get(states[0])));
+
+        Set<UUID> uuids = new HashSet<>();
+        for (PlayerState s : states) uuids.addAll(stateIndex.get(s));
+        return new UnresolvedPlayerSet(uuids);
+    }
+
+    /**
+     * @param t Team
+     * @param state State to filter by
+     * @return a snapshot of all assigned combatants on the team with the specified state
+     */
+    private UnresolvedPlayerSet playersOnTeam(int t, PlayerState state) {
+        Set<UUID> uuids = new HashSet<>();
+        for (UUID uuid : teamIndex.getOrDefault(t, Set.of())) {
+            if (playerMap.get(uuid).state() == state) uuids.add(uuid);
+        }
+        return new UnresolvedPlayerSet(uuids);
     }
 
     /**
      * @return a {@link Set} of all spectators
      */
     public @NotNull UnresolvedPlayerSet getSpectators() {
-        return getAllPlayersMatching(n -> n.state.isSpectator());
+        return playersIn(PlayerState.SPECTATOR);
     }
 
     /**
      * @return a {@link Set} of all combatants
      */
     public @NotNull UnresolvedPlayerSet getCombatants() {
-        return getAllPlayersMatching(n -> n.state.isCombatant());
+        return playersIn(PlayerState.COMBATANT_UNASSIGNED, PlayerState.COMBATANT_ALIVE, PlayerState.COMBATANT_DEAD);
     }
 
     /**
      * @return a {@link Set} of all wildcards (players that do not have a known team while in game)
      */
     public @NotNull UnresolvedPlayerSet getWildcards() {
-        return getAllPlayersMatching(n -> n.state.isAssignedCombatant() && n.team == 0);
+        return new UnresolvedPlayerSet(Set.copyOf(teamIndex.getOrDefault(0, Set.of())));
     }
 
     /**
      * @return a {@link Set} of all living combatants
      */
     public @NotNull UnresolvedPlayerSet getAliveCombatants() {
-        return getAllPlayersMatching(n -> n.state == PlayerState.COMBATANT_ALIVE);
+        return playersIn(PlayerState.COMBATANT_ALIVE);
     }
     /**
      * @return a {@link Set} of all assigned combatants
      */
     public @NotNull UnresolvedPlayerSet getAssignedCombatants() {
-        return getAllPlayersMatching(n -> n.state.isAssignedCombatant());
+        return playersIn(PlayerState.COMBATANT_ALIVE, PlayerState.COMBATANT_DEAD);
     }
 
     /**
@@ -415,11 +526,11 @@ public class TeamManager {
      */
     public @NotNull UnresolvedPlayerSet getCombatantsOnTeam(int team) {
         if (team < 0 || team > numTeams) {
-            throw new Key("err.team.invalid").transErr(IllegalArgumentException.class, team, numTeams);
+            throw INVALID_TEAM.transErr(IllegalArgumentException.class, team, numTeams);
         }
 
         if (team == 0) return new UnresolvedPlayerSet(Set.of()); // wildcard
-        return getAllPlayersMatching(n -> n.state.isAssignedCombatant() && n.team == team);
+        return new UnresolvedPlayerSet(Set.copyOf(teamIndex.getOrDefault(team, Set.of())));
     }
 
     /**
@@ -449,14 +560,39 @@ public class TeamManager {
      * @return an array of the alive teams by int
      */
     public int[] getAliveTeams() {
-        return playerMap.values().stream()
-            .filter(n -> n.state == PlayerState.COMBATANT_ALIVE)
-            .mapToInt(Node::team)
-            .filter(t -> t > 0)
-            .distinct()
+        return aliveOnTeam.keySet().stream()
+            .mapToInt(Integer::intValue)
             .toArray();
     }
 
+    /**
+     * @return the number of alive combatants
+     */
+    public int getNumAliveCombatants() {
+        return stateIndex.get(PlayerState.COMBATANT_ALIVE).size();
+    }
+
+    /**
+     * @return the number of assigned combatants
+     */
+    public int getNumAssignedCombatants() {
+        return stateIndex.get(PlayerState.COMBATANT_ALIVE).size() + stateIndex.get(PlayerState.COMBATANT_DEAD).size();
+    }
+
+    /**
+     * @return the number of teams with alive combatants
+     */
+    public int getNumAliveTeams() {
+        return aliveOnTeam.size();
+    }
+
+    /**
+     * @return the number of alive teams and wildcards
+     */
+    public int getNumAliveGroups() {
+        return aliveOnTeam.size() + aliveWildcards;
+    }
+
     public record AliveGroup(int team, UUID uuid) {
         @Override
         public boolean equals(Object o) {
@@ -472,6 +608,11 @@ public class TeamManager {
             return false;
         }
 
+        @Override
+        public int hashCode() {
+            return team == 0 ? uuid.hashCode() : Integer.hashCode(team);
+        }
+
         public Component getName() {
             if (team > 0) return TeamDisplay.getName(PlayerState.COMBATANT_ALIVE, team);
             return Component.text(Bukkit.getOfflinePlayer(uuid).getName());
@@ -482,9 +623,8 @@ public class TeamManager {
      * @return an array of alive teams and wildcards
      */
     public AliveGroup[] getAliveGroups() {
-        return playerMap.entrySet().stream()
-            .filter(e -> e.getValue().state == PlayerState.COMBATANT_ALIVE)
-            .map(e -> new AliveGroup(e.getValue().team(), e.getKey()))
+        return stateIndex.get(PlayerState.COMBATANT_ALIVE).stream()
+            .map(uuid -> new AliveGroup(playerMap.get(uuid).team(), uuid))
             .distinct()
             .toArray(AliveGroup[]::new);
     }
@@ -501,7 +641,7 @@ public class TeamManager {
         if (s == PlayerState.COMBATANT_ALIVE && t != 0) {
             // team chat
             groupName = TeamDisplay.getPrefix(s, t);
-            aud = getAllPlayersMatching(n -> n.state == PlayerState.COMBATANT_ALIVE && n.team == t).online();
+            aud = playersOnTeam(t, PlayerState.COMBATANT_ALIVE).online();
         } else if (s == PlayerState.COMBATANT_ALIVE && t == 0) {
             // wildcard chat
             groupName = Component.text("[:(]");
@@ -509,7 +649,7 @@ public class TeamManager {
         } else if (s.isSpectating()) {
             // dead chat
             groupName = TeamDisplay.getDeadPrefix();
-            aud = getAllPlayersMatching(n -> n.state.isSpectating()).online();
+            aud = playersIn(PlayerState.SPECTATOR, PlayerState.COMBATANT_DEAD).online();
         } 
 
         aud = new HashSet<>(aud);
@@ -524,10 +664,7 @@ public class TeamManager {
     public boolean isTeamEliminated(int t) {
         if (t == 0) return false; // wildcard d/n have team
 
-        return playerMap.values().stream()
-            .filter(n -> n.state == PlayerState.COMBATANT_ALIVE)
-            .mapToInt(n -> n.team)
-            .noneMatch(i -> i == t);
+        return !aliveOnTeam.containsKey(t);
     }
 
     /**
@@ -572,7 +709,7 @@ public class TeamManager {
      * @return get number of wildcards in game
      */
     public int getNumWildcards() {
-        return getWildcards().size();
+        return teamIndex.getOrDefault(0, Set.of()).size();
     }
 
     /*
@@ -612,7 +749,7 @@ public class TeamManager {
             case "sextets" -> 6;
             case "septets" -> 7;
             case "octets" -> 8;
-            default -> throw new Key("err.team.size_name_invalid").transErr(IllegalArgumentException.class, s);
+            default -> throw SIZE_NAME_INVALID.transErr(IllegalArgumentException.class, s);
         });
     }
 
@@ -22,6 +22,9 @@ public class UHCGamePlugin extends JavaPlugin {
     private WorldManager worldManager;
     private SpreadPlayersManager spreadPlayersManager;
     private SardinesManager sardinesManager;
+    private BlockEditManager blockEditManager;
+    private PregenManager pregenManager;
+    private SeedPool seedPool;
     private Recipes recipes;
 
     @Override
@@ -36,7 +39,6 @@ public class UHCGamePlugin extends JavaPlugin {
         langManager = new LangManager(this);
         Debug.setLogger(getLogger());
         
-        GameStage.setPlugin(this);
         configValues = new ConfigValues(this);
         teamManager = new TeamManager(this);
         gameManager = new GameManager(this);
@@ -46,6 +48,9 @@ public class UHCGamePlugin extends JavaPlugin {
         menuManager = new MenuManager(this);
         spreadPlayersManager = new SpreadPlayersManager(this);
         sardinesManager = new SardinesManager(this);
+        blockEditManager = new BlockEditManager(this);
+        pregenManager = new PregenManager(this);
+        seedPool = new SeedPool(this);
         recipes = new Recipes(this);
 
         Bukkit.getPluginManager().registerEvents(gameManager, this);
@@ -59,10 +64,14 @@ public class UHCGamePlugin extends JavaPlugin {
         recipes.registerAll();
 
         gameManager.loadManagerRefs();
+        langManager.validateKeys();
+        seedPool.start();
     }
 
     @Override
     public void onDisable() {
+        pregenManager.stop();
+        seedPool.stop();
         this.saveConfig();
     }
     
@@ -97,6 +106,18 @@ public class UHCGamePlugin extends JavaPlugin {
         return sardinesManager;
     }
 
+    public BlockEditManager getBlockEditManager() {
+        return blockEditManager;
+    }
+
+    public PregenManager getPregenManager() {
+        return pregenManager;
+    }
+
+    public SeedPool getSeedPool() {
+        return seedPool;
+    }
+
     public Recipes getRecipes() {
         return recipes;
     }
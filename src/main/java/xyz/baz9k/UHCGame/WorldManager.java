@@ -97,16 +97,11 @@ public class WorldManager implements Listener {
         worldsRegened = false;
 
         var cfg = plugin.configValues();
-        int dnCycle = cfg.dnCycle();
-        // 0: 05:00 per cycle
-        // 1: 10:00 per cycle
-        // 2: 20:00 per cycle
-        // 3: Always Day
-        // 4: Always Night
+        var dnCycle = cfg.dnCycle();
 
         for (World w : getGameWorlds()) {
             // set time to 0 and delete rain
-            w.setTime(dnCycle == 4 ? 18000 : 0);
+            w.setTime(dnCycle.startTime());
             w.setClearWeatherDuration(Integer.MAX_VALUE); // there is NO rain. Ever again. [ :( ]
             w.setDifficulty(Difficulty.HARD);
 
@@ -121,30 +116,21 @@ public class WorldManager implements Listener {
             w.setGameRule(GameRule.FALL_DAMAGE,          cfg.fallDamage());
             w.setGameRule(GameRule.FIRE_DAMAGE,          cfg.fireDamage());
             w.setGameRule(GameRule.FREEZE_DAMAGE,        cfg.freezeDamage());
-            w.setGameRule(GameRule.DO_DAYLIGHT_CYCLE,    dnCycle == 2);
+            w.setGameRule(GameRule.DO_DAYLIGHT_CYCLE,    dnCycle.daylightCycle());
             purgeWorld(w);
 
             // create beacon in worlds
             int min = w.getMinHeight(),
                 max = w.getMaxHeight();
                 
-            for (int x = -2; x <= 2; x++) {
-                for (int z = -2; z <= 2; z++) {
-                    w.getBlockAt(x, min, z).setType(Material.BEDROCK);
-                }
-            }
-            for (int x = -1; x <= 1; x++) {
-                for (int z = -1; z <= 1; z++) {
-                    w.getBlockAt(x, min, z).setType(Material.NETHERITE_BLOCK);
-                    w.getBlockAt(x, min + 1, z).setType(Material.BEDROCK);
-                }
-            }
-            w.getBlockAt(0, min + 1, 0).setType(Material.BEACON);
-            w.getBlockAt(0, min + 2, 0).setType(Material.BEDROCK);
-
-            for (int y = min + 3; y < max; y++) {
-                w.getBlockAt(0, y, 0).setType(Material.BARRIER);
-            }
+            plugin.getBlockEditManager().batch(w)
+                .fill(-2, min, -2, 2, min, 2, Material.BEDROCK)
+                .fill(-1, min, -1, 1, min, 1, Material.NETHERITE_BLOCK)
+                .fill(-1, min + 1, -1, 1, min + 1, 1, Material.BEDROCK)
+                .set(0, min + 1, 0, Material.BEACON)
+                .set(0, min + 2, 0, Material.BEDROCK)
+                .fill(0, min + 3, 0, 0, max - 1, 0, Material.BARRIER)
+                .submit();
         }
     }
 
@@ -163,6 +149,12 @@ public class WorldManager implements Listener {
      * Accessible through /uhc reseed
      */
     public void reseedWorlds() {
+        var pooled = plugin.getSeedPool().take();
+        if (pooled.isPresent()) {
+            reseedWorlds(pooled.getAsLong(), false);
+            return;
+        }
+
         boolean doVerify = !plugin.configValues().netherSpawn();
 
         Random r = new Random();
@@ -205,11 +197,27 @@ public class WorldManager implements Listener {
     );
 
     public boolean isGoodWorld(@NotNull World w) {
-        var loc = getHighestLoc(w, 1, 1);
         Debug.printDebug(String.format("Checking %s's biome", w.getSeed()));
-        Biome b = w.getBiome(1, (int) loc.getY() - 1, 1);
+        Biome b = spawnBiome(w);
         Debug.printDebug(String.format("Checked %s's biome, it's %s", w.getSeed(), b));
         
+        return isGoodBiome(b);
+    }
+
+    /**
+     * @param w World to check
+     * @return the biome at the surface of the spawn
+     */
+    public Biome spawnBiome(@NotNull World w) {
+        var loc = getHighestLoc(w, 1, 1);
+        return w.getBiome(1, (int) loc.getY() - 1, 1);
+    }
+
+    /**
+     * @param b Biome at spawn
+     * @return true if the game can be played with this biome at spawn
+     */
+    public static boolean isGoodBiome(Biome b) {
         return !rejectedBiomes.contains(b);
     }
 
@@ -0,0 +1,32 @@
+package xyz.baz9k.UHCGame.event;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+import xyz.baz9k.UHCGame.TeamManager.AliveGroup;
+
+/**
+ * Called when an elimination leaves only one alive group (a team or a wildcard).
+ */
+public class LastGroupStandingEvent extends Event {
+    // boilerplate
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+    //
+
+    private final AliveGroup group;
+
+    public LastGroupStandingEvent(AliveGroup group) {
+        this.group = group;
+    }
+
+    public AliveGroup group() { return group; }
+    
+}
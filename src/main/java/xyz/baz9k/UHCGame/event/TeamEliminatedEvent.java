@@ -0,0 +1,31 @@
+package xyz.baz9k.UHCGame.event;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Called when the last alive combatant on a team stops being alive.
+ */
+public class TeamEliminatedEvent extends Event {
+    // boilerplate
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+    //
+
+    private final int team;
+
+    public TeamEliminatedEvent(int team) {
+        this.team = team;
+    }
+
+    public int team() { return team; }
+    
+}
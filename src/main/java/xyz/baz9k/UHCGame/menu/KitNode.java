@@ -27,6 +27,9 @@ import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
  * {@link Node} that holds a custom kit editor. It also communicates the kit to the config.
  */
 public class KitNode extends InventoryNode implements ValueHolder {
+    // translation keys, checked when the plugin is enabled
+    private static final Key KIT_SAVED = Key.of("menu.inv.kit_save.succ");
+
 
     private boolean grantXP = false;
     private final TransItemStack xpStack;
@@ -100,7 +103,7 @@ public class KitNode extends InventoryNode implements ValueHolder {
                 throw new RuntimeException(e);
             }
 
-            p.sendMessage(new Key("menu.inv.kit_save.succ").trans());
+            p.sendMessage(KIT_SAVED.trans());
         }
         return 0;
     }
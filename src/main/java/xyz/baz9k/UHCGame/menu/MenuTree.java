@@ -23,6 +23,13 @@ import java.util.*;
  * Setup for the config GUI tree
  */
 public class MenuTree {
+    // translation keys, checked when the plugin is enabled
+    private static final Key CHECK_END_FAILED   = Key.of("err.menu.panel.check_end_failed"),
+                             CHECK_START_FAILED = Key.of("err.menu.panel.check_start_failed"),
+                             ASSIGN_TEAMS_LORE  = Key.of("menu.inv.assign_teams_x.extra_lore"),
+                             DISABLED           = Key.of("menu.inv.config.presets.disabled"),
+                             BOSS_TEAM_PLAYERS  = Key.of("menu.inv.team.boss_team.players");
+
     private final BranchNode root;
     private final UHCGamePlugin plugin;
 
@@ -65,7 +72,7 @@ public class MenuTree {
                 .extraLore(checks -> {
                     var lines = new ArrayList<Component>();
                     if (checks.size() > 0) {
-                        lines.add(render(new Key("err.menu.panel.check_start_failed").trans()));
+                        lines.add(render(CHECK_START_FAILED.trans()));
 
                         for (var l : checks) {
                             lines.add(Component.text(l));
@@ -85,7 +92,7 @@ public class MenuTree {
                 .extraLore(checks -> {
                     var lines = new ArrayList<Component>();
                     if (checks.size() > 0) {
-                        lines.add(render(new Key("err.menu.panel.check_end_failed").trans()));
+                        lines.add(render(CHECK_END_FAILED.trans()));
 
                         for (var l : checks) {
                             lines.add(Component.text(l));
@@ -129,7 +136,7 @@ public class MenuTree {
                     int n_combs = tm.getCombatants().online().size();
                     int n_specs = tm.getSpectators().online().size();
                     return new ExtraLore(
-                        new Key("menu.inv.assign_teams_x.extra_lore"), n_combs, n_specs
+                        ASSIGN_TEAMS_LORE, n_combs, n_specs
                     );
                 }),
             p -> {
@@ -242,8 +249,8 @@ public class MenuTree {
                 .nameStyle(0xA100FF) 
                 .formatArg(v -> {
                     int nPlayers = (int) v;
-                    if (nPlayers < 1) return new Key("menu.inv.config.presets.disabled").trans();
-                    return new Key("menu.inv.team.boss_team.players").trans(nPlayers);
+                    if (nPlayers < 1) return DISABLED.trans();
+                    return BOSS_TEAM_PLAYERS.trans(nPlayers);
                 }),
             ValuedNode.Type.INTEGER, 
             v -> Math.max(0, (int) v)
@@ -268,7 +275,7 @@ public class MenuTree {
             new DynItemProperties<>(v -> (int) v >= 0 ? Material.SHIELD : Material.BLACK_CONCRETE)
                 .formatArg(v -> {
                     int secs = (int) v;
-                    if (secs < 0) return new Key("menu.inv.config.presets.disabled").trans();
+                    if (secs < 0) return DISABLED.trans();
                     return getTimeString(secs);
                 }), 
             ValuedNode.Type.INTEGER, 
@@ -278,7 +285,7 @@ public class MenuTree {
             new DynItemProperties<>(v -> (int) v >= 0 ? Material.GLOW_BERRIES : Material.BLACK_CONCRETE)
                 .formatArg(v -> {
                     int secs = (int) v;
-                    if (secs < 0) return new Key("menu.inv.config.presets.disabled").trans();
+                    if (secs < 0) return DISABLED.trans();
                     return getTimeString(secs);
                 }), 
             ValuedNode.Type.INTEGER, 
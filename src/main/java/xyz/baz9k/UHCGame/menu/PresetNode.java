@@ -23,6 +23,9 @@ import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
  * {@link Node} that stores the preset and can set the game preset.
  */
 public final class PresetNode extends Node {
+    // translation keys, checked when the plugin is enabled
+    private static final Key PRESET_LORE = Key.of("menu.inv.config.presets.extra_lore");
+
     // Duration: {start} / {movement1} / {stop} / {movement2} / {dmwait}
     // World Border: {initial} → {border1} → {border2} / {deathmatch}
     // Global:
@@ -40,7 +43,7 @@ public final class PresetNode extends Node {
         this.preset = preset;
 
         props.extraLore(o -> {
-            return new ExtraLore(new Key("menu.inv.config.presets.extra_lore"), 
+            return new ExtraLore(PRESET_LORE, 
                 fromPreset("intervals.start"), fromPreset("intervals.movement1"), fromPreset("intervals.stop"), fromPreset("intervals.movement2"), fromPreset("intervals.dmwait"),
                 fromPreset("wb_size.initial"), fromPreset("wb_size.border1"), fromPreset("wb_size.border2"), fromPreset("wb_size.deathmatch"),
                 settingsText("global"),
@@ -60,6 +63,7 @@ public final class PresetNode extends Node {
 
             cfg.set(path, val);
         }
+        plugin.configValues().recompile();
 
         return true;
     }
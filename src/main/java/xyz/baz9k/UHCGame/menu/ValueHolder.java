@@ -14,7 +14,10 @@ public interface ValueHolder {
      */
     public default void set(Object o) {
         String key = cfgKey();
-        if (key != null) Node.cfg.set(cfgKey(), o);
+        if (key != null) {
+            Node.cfg.set(cfgKey(), o);
+            Node.plugin.configValues().recompile();
+        }
     }
 
     /**
@@ -20,6 +20,12 @@ import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
  * Used to get a value from the {@link Player} once a prompting {@link ValuedNode} asks for one.
  */
 public class ValueRequest {
+    // translation keys, checked when the plugin is enabled
+    private static final Key WRONG_TYPE    = Key.of("err.menu.prompt.wrong_type"),
+                             PROMPT_ASK    = Key.of("menu.prompt.ask"),
+                             PROMPT_CANCEL = Key.of("menu.prompt.cancel"),
+                             PROMPT_SUCC   = Key.of("menu.prompt.succ");
+
     public enum Type {
         NUMBER_REQUEST,
         STRING_REQUEST
@@ -29,7 +35,7 @@ public class ValueRequest {
         this(plugin, converser, switch (node.type) {
             case INTEGER, DOUBLE -> Type.NUMBER_REQUEST;
             case STRING -> Type.STRING_REQUEST;
-            default -> throw new Key("err.menu.prompt.wrong_type").transErr(IllegalArgumentException.class, node.type);
+            default -> throw WRONG_TYPE.transErr(IllegalArgumentException.class, node.type);
         }, node.cfgKey(), node::set, node.parent);
     }
 
@@ -59,7 +65,7 @@ public class ValueRequest {
             .addConversationAbandonedListener(e -> {
                 if (!e.gracefulExit()) {
                     Player p = (Player) e.getContext().getForWhom();
-                    p.sendMessage(new Key("menu.prompt.cancel").trans());
+                    p.sendMessage(PROMPT_CANCEL.trans());
                 }
             })
             .buildConversation(converser)
@@ -71,7 +77,7 @@ public class ValueRequest {
         @Override
         public @NotNull String getPromptText(@NotNull ConversationContext context) {
             Object id = context.getSessionData("requestKey");
-            return renderString(new Key("menu.prompt.ask").trans(id));
+            return renderString(PROMPT_ASK.trans(id));
         }
         
         @Override
@@ -86,7 +92,7 @@ public class ValueRequest {
         @Override
         public @NotNull String getPromptText(@NotNull ConversationContext context) {
             Object id = context.getSessionData("requestKey");
-            return renderString(new Key("menu.prompt.ask").trans(id));
+            return renderString(PROMPT_ASK.trans(id));
         }
 
         @Override
@@ -110,7 +116,7 @@ public class ValueRequest {
 
             consumer.accept(newValue);
             if (reopenInventory) returnNode.click((Player) context.getForWhom());
-            return renderString(new Key("menu.prompt.succ").trans(requestKey, newValue));
+            return renderString(PROMPT_SUCC.trans(requestKey, newValue));
         }
 
         @Override
@@ -13,6 +13,10 @@ import java.util.Objects;
 import java.util.function.UnaryOperator;
 
 public class ValuedNode extends Node implements ValueHolder {
+    // translation keys, checked when the plugin is enabled
+    private static final Key NEEDS_IMPL       = Key.of("err.menu.needs_impl"),
+                             NOT_NUMERIC_TYPE = Key.of("err.menu.not_numeric_type");
+
     protected final Type type;
     protected UnaryOperator<Number> restrict = UnaryOperator.identity();
     private Object prevValue;
@@ -35,7 +39,7 @@ public class ValuedNode extends Node implements ValueHolder {
 
         private Type requireNumeric() {
             if (isNumeric) return this;
-            throw new Key("err.menu.not_numeric_type").transErr(IllegalArgumentException.class, this);
+            throw NOT_NUMERIC_TYPE.transErr(IllegalArgumentException.class, this);
         }
     }
 
@@ -92,7 +96,7 @@ public class ValuedNode extends Node implements ValueHolder {
             case INTEGER, DOUBLE, STRING -> new ValueRequest(plugin, p, this);
             case BOOLEAN -> this.set(!cfg.getBoolean(cfgKey()));
             // case OPTION -> see OptionValuedNode#click
-            default -> throw new Key("err.menu.needs_impl").transErr(IllegalArgumentException.class, type);
+            default -> throw NEEDS_IMPL.transErr(IllegalArgumentException.class, type);
         }
         return true;
     }
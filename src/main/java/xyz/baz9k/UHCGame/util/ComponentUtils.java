@@ -8,6 +8,9 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import org.bukkit.Bukkit;
 import org.jetbrains.annotations.NotNull;
@@ -28,11 +31,56 @@ public final class ComponentUtils {
     public static record Key(String key) {
         public static final Path prefix = Path.of("xyz.baz9k.uhc");
 
+        // resolved keys, so that each key string is only parsed as a path once
+        private static final Map<String, String> relativeKeys = new ConcurrentHashMap<>();
+        private static final Map<String, String> fullKeys = new ConcurrentHashMap<>();
+        /**
+         * Keys created with {@link #of}
+         */
+        private static final Map<String, Key> interned = new ConcurrentHashMap<>();
+        private static volatile Predicate<Key> validator;
+        private static final Key MISSING_KEYS = Key.of("err.lang.missing_keys");
+
         public Key {
-            Path kp = Path.of(key);
-            key = kp.relativeTo(prefix)
-                .orElse(kp)
-                .toString();
+            key = relativeKeys.computeIfAbsent(key, k -> {
+                Path kp = Path.of(k);
+                return kp.relativeTo(prefix)
+                    .orElse(kp)
+                    .toString();
+            });
+        }
+
+        /**
+         * Gets the canonical Key for a constant key. This should be used for keys stored in constants.
+         * <p>
+         * Keys created this way are checked to exist when the plugin is enabled (see {@link #validateAll}),
+         * and keys created afterwards are checked immediately.
+         * @param key the key
+         * @return the Key
+         * @throws IllegalStateException if keys have been validated and this key does not exist
+         */
+        public static Key of(String key) {
+            Key k = interned.computeIfAbsent(key, Key::new);
+
+            Predicate<Key> exists = validator;
+            if (exists != null && !exists.test(k)) {
+                throw MISSING_KEYS.transErr(IllegalStateException.class, k.key());
+            }
+            return k;
+        }
+
+        /**
+         * Checks every Key created with {@link #of}. Keys created with {@link #of} after this are checked when they are created.
+         * @param exists Tests if a key exists
+         * @return the full keys which do not exist
+         */
+        public static List<String> validateAll(Predicate<Key> exists) {
+            validator = exists;
+            return interned.values().stream()
+                .filter(exists.negate())
+                .map(Key::key)
+                .sorted()
+                .toList();
         }
 
         public Key(String key, Object... args) {
@@ -47,7 +95,7 @@ public final class ComponentUtils {
          * @return the full translation key for this Key
          */
         public String key() {
-            return prefix.append(key).toString();
+            return fullKeys.computeIfAbsent(key, k -> prefix.append(k).toString());
         }
         
         private static Object[] parseArgs(Object... args) {
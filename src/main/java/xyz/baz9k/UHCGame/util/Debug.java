@@ -12,6 +12,9 @@ import java.util.logging.Logger;
 import org.bukkit.Bukkit;
 
 public final class Debug {
+    // translation keys, checked when the plugin is enabled
+    private static final Key DEBUG_PREFIX = Key.of("debug.prefix");
+
     private Debug() { }
     private static boolean debug = true;
     private static Logger logger = null;
@@ -54,7 +57,7 @@ public final class Debug {
     }
 
     private static Component fmtDebug(Component msg) {
-        return new Key("debug.prefix").trans(msg).color(NamedTextColor.YELLOW);
+        return DEBUG_PREFIX.trans(msg).color(NamedTextColor.YELLOW);
     }
 
     /**
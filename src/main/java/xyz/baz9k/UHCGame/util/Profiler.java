@@ -0,0 +1,249 @@
+package xyz.baz9k.UHCGame.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight timing instrumentation for the game tick and event handlers.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * long t0 = Profiler.start();
+ * // ... work ...
+ * Profiler.stop(Profiler.Section.PLAYER_HUD, t0);
+ * }</pre>
+ * When profiling is disabled, {@link #start()} returns 0 and {@link #stop} does nothing,
+ * so the only cost is a field read.
+ * <p>
+ * Timings are recorded into lock-free log-linear histograms,
+ * which are kept over a rolling window of the last {@link #WINDOW}.
+ * <p>
+ * Event counts (e.g. packets sent vs. skipped) are recorded with {@link #count}
+ * and are kept since profiling was last enabled.
+ */
+public final class Profiler {
+    private Profiler() { }
+
+    private static volatile boolean enabled = false;
+
+    /**
+     * Number of sub-windows in the rolling window
+     */
+    private static final int SUB_WINDOWS = 6;
+    private static final long SUB_WINDOW_NANOS = Duration.ofSeconds(10).toNanos();
+    /**
+     * Span of time the reported timings cover
+     */
+    public static final Duration WINDOW = Duration.ofNanos(SUB_WINDOWS * SUB_WINDOW_NANOS);
+
+    /**
+     * The instrumented sections of the plugin
+     */
+    public enum Section {
+        BOSSBAR_TICK,
+        STAGE_CHECK,
+        TIMED_EVENTS,
+        PLAYER_HUD,
+        HUD_FLUSH,
+        ON_MOVE,
+        ON_DAMAGE,
+        ON_HEAL,
+        PREFIX_DISPATCH,
+        ON_DEATH,
+        ON_BLOCK_DROP,
+        ON_LEAF_DECAY,
+        ON_MOB_DROP,
+        ON_CRAFT;
+
+        private final RollingHistogram hist = new RollingHistogram();
+
+        /**
+         * @return the timings of this section over the last {@link Profiler#WINDOW}
+         */
+        public Snapshot snapshot() {
+            return hist.snapshot(System.nanoTime());
+        }
+    }
+
+    /**
+     * The counted events of the plugin
+     */
+    public enum Counter {
+        HUD_LINE_SENT,
+        HUD_LINE_SUPPRESSED,
+        MOVE_HANDLED,
+        MOVE_FILTERED,
+        PREFIX_SENT,
+        PREFIX_SUPPRESSED,
+        HEALTH_SCORE_SENT,
+        HEALTH_SCORE_SUPPRESSED,
+        RENDER_HIT,
+        RENDER_MISS,
+        BOSSBAR_SENT,
+        BOSSBAR_SKIPPED;
+
+        private final LongAdder adder = new LongAdder();
+
+        /**
+         * @return the number of times this event occurred since profiling was enabled
+         */
+        public long get() {
+            return adder.sum();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean e) {
+        if (e && !enabled) reset();
+        enabled = e;
+    }
+
+    /**
+     * Clears all recorded timings and counts
+     */
+    public static void reset() {
+        for (Section s : Section.values()) s.hist.reset();
+        for (Counter c : Counter.values()) c.adder.reset();
+    }
+
+    /**
+     * Counts an occurrence of an event.
+     * @param c Counter to increment
+     */
+    public static void count(Counter c) {
+        if (enabled) c.adder.increment();
+    }
+
+    /**
+     * Starts timing a section.
+     * @return the start time to pass to {@link #stop}, or 0 if profiling is disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops timing a section and records the elapsed time.
+     * @param s Section to record into
+     * @param t0 Value returned by {@link #start()}
+     */
+    public static void stop(Section s, long t0) {
+        if (t0 == 0) return;
+        long now = System.nanoTime();
+        s.hist.record(now, now - t0);
+    }
+
+    /**
+     * Summary of a section's timings. All times are in nanoseconds.
+     * @param count Number of times the section ran
+     * @param total Total time spent in the section
+     * @param p50 Median time
+     * @param p99 99th percentile time
+     * @param max Maximum time
+     */
+    public record Snapshot(long count, long total, long p50, long p99, long max) { }
+
+    /**
+     * Log-linear bucketing: values below 2^{@link #SUB_BITS} get their own bucket,
+     * and every power of 2 above that is split into 2^{@link #SUB_BITS} buckets.
+     * This gives about 12% relative error on percentiles.
+     */
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private static int bucketOf(long v) {
+        if (v < SUB) return (int) Math.max(v, 0);
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (e - SUB_BITS)) & (SUB - 1);
+        return (e - SUB_BITS + 1) * SUB + sub;
+    }
+
+    /**
+     * @return the midpoint of the range of values in the bucket
+     */
+    private static long valueOf(int bucket) {
+        if (bucket < SUB) return bucket;
+        int e = bucket / SUB + SUB_BITS - 1;
+        int sub = bucket % SUB;
+        long lo = (long) (SUB + sub) << (e - SUB_BITS);
+        return lo + (1L << (e - SUB_BITS)) / 2;
+    }
+
+    private static final class Window {
+        final AtomicLong epoch = new AtomicLong(-1);
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong max = new AtomicLong();
+
+        void clear() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            total.set(0);
+            max.set(0);
+        }
+    }
+
+    private static final class RollingHistogram {
+        private final Window[] windows = new Window[SUB_WINDOWS];
+        {
+            for (int i = 0; i < SUB_WINDOWS; i++) windows[i] = new Window();
+        }
+
+        void record(long now, long dt) {
+            long ep = now / SUB_WINDOW_NANOS;
+            Window w = windows[(int) Math.floorMod(ep, SUB_WINDOWS)];
+
+            // first record in a new sub-window claims it and clears out the old values
+            long old = w.epoch.get();
+            if (old != ep && w.epoch.compareAndSet(old, ep)) w.clear();
+
+            w.buckets.incrementAndGet(bucketOf(dt));
+            w.total.addAndGet(dt);
+            w.max.accumulateAndGet(dt, Math::max);
+        }
+
+        Snapshot snapshot(long now) {
+            long ep = now / SUB_WINDOW_NANOS;
+            long[] merged = new long[BUCKETS];
+            long count = 0, total = 0, max = 0;
+
+            for (Window w : windows) {
+                long wep = w.epoch.get();
+                if (wep < 0 || ep - wep >= SUB_WINDOWS) continue;
+
+                for (int i = 0; i < BUCKETS; i++) {
+                    long c = w.buckets.get(i);
+                    merged[i] += c;
+                    count += c;
+                }
+                total += w.total.get();
+                max = Math.max(max, w.max.get());
+            }
+
+            return new Snapshot(count, total, percentile(merged, count, 0.50), percentile(merged, count, 0.99), max);
+        }
+
+        private static long percentile(long[] buckets, long count, double q) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return valueOf(i);
+            }
+            return valueOf(buckets.length - 1);
+        }
+
+        void reset() {
+            for (Window w : windows) {
+                w.epoch.set(-1);
+                w.clear();
+            }
+        }
+    }
+}
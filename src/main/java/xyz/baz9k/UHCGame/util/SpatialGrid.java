@@ -0,0 +1,231 @@
+package xyz.baz9k.UHCGame.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A uniform grid over the XZ plane, for finding the items near a position.
+ * <p>
+ * Items are added with {@link #add}. The first query after adding sorts the items into cells,
+ * which takes linear time. Coordinates are kept in primitive arrays, so queries do not allocate per item.
+ * @param <T> Type of the items in the grid
+ */
+public class SpatialGrid<T> {
+    private final double cellSize;
+
+    private int size = 0;
+    private double[] xs = new double[16];
+    private double[] zs = new double[16];
+    private Object[] items = new Object[16];
+
+    private boolean built = false;
+    /**
+     * Maps each nonempty cell's key to its index in {@link #cellStart}
+     */
+    private final HashMap<Long, Integer> cells = new HashMap<>();
+    /**
+     * The items of cell c are order[cellStart[c]] to order[cellStart[c + 1] - 1]
+     */
+    private int[] cellStart = new int[0];
+    private int[] order = new int[0];
+    private int minCx, maxCx, minCz, maxCz;
+
+    /**
+     * @param cellSize Side length of each cell
+     */
+    public SpatialGrid(double cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("Cell size must be positive");
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Removes all items from the grid.
+     */
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+        built = false;
+    }
+
+    /**
+     * Adds an item to the grid.
+     * @param item Item to add
+     * @param x X position of item
+     * @param z Z position of item
+     */
+    public void add(T item, double x, double z) {
+        if (size == items.length) {
+            int cap = size * 2;
+            xs = Arrays.copyOf(xs, cap);
+            zs = Arrays.copyOf(zs, cap);
+            items = Arrays.copyOf(items, cap);
+        }
+
+        xs[size] = x;
+        zs[size] = z;
+        items[size] = item;
+        size++;
+        built = false;
+    }
+
+    /**
+     * @return the number of items in the grid
+     */
+    public int size() {
+        return size;
+    }
+
+    private int cellOf(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return (long) cx << 32 | (cz & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Sorts the items into cells (a counting sort by cell).
+     */
+    private void build() {
+        if (built) return;
+        cells.clear();
+
+        int[] cellOfItem = new int[size];
+        int[] counts = new int[size];
+        minCx = minCz = Integer.MAX_VALUE;
+        maxCx = maxCz = Integer.MIN_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            int cx = cellOf(xs[i]),
+                cz = cellOf(zs[i]);
+            minCx = Math.min(minCx, cx);
+            maxCx = Math.max(maxCx, cx);
+            minCz = Math.min(minCz, cz);
+            maxCz = Math.max(maxCz, cz);
+
+            int c = cells.computeIfAbsent(cellKey(cx, cz), k -> cells.size());
+            cellOfItem[i] = c;
+            counts[c]++;
+        }
+
+        int nCells = cells.size();
+        cellStart = new int[nCells + 1];
+        for (int c = 0; c < nCells; c++) cellStart[c + 1] = cellStart[c] + counts[c];
+
+        order = new int[size];
+        int[] fill = Arrays.copyOf(cellStart, nCells);
+        for (int i = 0; i < size; i++) order[fill[cellOfItem[i]]++] = i;
+
+        built = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int i) {
+        return (T) items[i];
+    }
+
+    /**
+     * Finds every item within a radius of a position.
+     * @param x X of position
+     * @param z Z of position
+     * @param r Radius
+     * @param filter Only items matching this are included
+     * @return the matching items (in no particular order)
+     */
+    public List<T> withinRadius(double x, double z, double r, Predicate<? super T> filter) {
+        build();
+        List<T> result = new ArrayList<>();
+        if (size == 0) return result;
+
+        int cx1 = Math.max(cellOf(x - r), minCx), cx2 = Math.min(cellOf(x + r), maxCx),
+            cz1 = Math.max(cellOf(z - r), minCz), cz2 = Math.min(cellOf(z + r), maxCz);
+        double r2 = r * r;
+
+        for (int cx = cx1; cx <= cx2; cx++) {
+            for (int cz = cz1; cz <= cz2; cz++) {
+                Integer c = cells.get(cellKey(cx, cz));
+                if (c == null) continue;
+
+                for (int j = cellStart[c]; j < cellStart[c + 1]; j++) {
+                    int i = order[j];
+                    double dx = xs[i] - x, dz = zs[i] - z;
+                    if (dx * dx + dz * dz <= r2 && filter.test(item(i))) result.add(item(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the nearest items to a position, searching outward one ring of cells at a time.
+     * @param x X of position
+     * @param z Z of position
+     * @param k Max number of items to find
+     * @param filter Only items matching this are included
+     * @return up to k matching items, nearest first
+     */
+    public List<T> nearest(double x, double z, int k, Predicate<? super T> filter) {
+        build();
+        if (size == 0 || k <= 0) return new ArrayList<>();
+
+        // best k so far, sorted by distance
+        int[] best = new int[k];
+        double[] bestD2 = new double[k];
+        int found = 0;
+
+        int cx0 = cellOf(x),
+            cz0 = cellOf(z);
+        // rings closer than this are entirely outside of the grid's bounds
+        int dMin = Math.max(
+            Math.max(minCx - cx0, cx0 - maxCx),
+            Math.max(minCz - cz0, cz0 - maxCz)
+        );
+        int dMax = Math.max(
+            Math.max(cx0 - minCx, maxCx - cx0),
+            Math.max(cz0 - minCz, maxCz - cz0)
+        );
+
+        for (int d = Math.max(dMin, 0); d <= dMax; d++) {
+            // anything in this ring is at least (d - 1) cells away
+            double ringDist = Math.max(d - 1, 0) * cellSize;
+            if (found == k && bestD2[k - 1] <= ringDist * ringDist) break;
+
+            for (int cx = Math.max(cx0 - d, minCx); cx <= Math.min(cx0 + d, maxCx); cx++) {
+                boolean edgeColumn = cx == cx0 - d || cx == cx0 + d;
+                int step = edgeColumn ? 1 : 2 * d;
+
+                for (int cz = cz0 - d; cz <= cz0 + d; cz += Math.max(step, 1)) {
+                    if (cz < minCz || cz > maxCz) continue;
+                    Integer c = cells.get(cellKey(cx, cz));
+                    if (c == null) continue;
+
+                    for (int j = cellStart[c]; j < cellStart[c + 1]; j++) {
+                        int i = order[j];
+                        double dx = xs[i] - x, dz = zs[i] - z;
+                        double d2 = dx * dx + dz * dz;
+                        if (found == k && d2 >= bestD2[k - 1]) continue;
+                        if (!filter.test(item(i))) continue;
+
+                        // insert into the sorted best list
+                        int pos = Math.min(found, k - 1);
+                        while (pos > 0 && bestD2[pos - 1] > d2) {
+                            best[pos] = best[pos - 1];
+                            bestD2[pos] = bestD2[pos - 1];
+                            pos--;
+                        }
+                        best[pos] = i;
+                        bestD2[pos] = d2;
+                        if (found < k) found++;
+                    }
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(found);
+        for (int n = 0; n < found; n++) result.add(item(best[n]));
+        return result;
+    }
+}
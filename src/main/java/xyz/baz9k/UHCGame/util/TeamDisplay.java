@@ -18,6 +18,9 @@ import java.util.Arrays;
 import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
 
 public final class TeamDisplay {
+    // translation keys, checked when the plugin is enabled
+    private static final Key DEAD_PREFIX = Key.of("team.prefix.dead");
+
     private TeamDisplay() {}
 
     private static final Color[] TEAM_COLORS;
@@ -136,7 +139,7 @@ public final class TeamDisplay {
      * @return get the prefix for dead chat
      */
     public static Component getDeadPrefix() {
-        return new Key("team.prefix.dead")
+        return DEAD_PREFIX
             .trans()
             .style(Style.style(NamedTextColor.GRAY, TextDecoration.ITALIC));
     }
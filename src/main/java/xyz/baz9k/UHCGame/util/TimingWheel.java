@@ -0,0 +1,223 @@
+package xyz.baz9k.UHCGame.util;
+
+import java.util.Objects;
+
+/**
+ * Hierarchical timing wheel keyed by tick.
+ * <p>
+ * Tasks are kept in doubly-linked buckets, so scheduling and cancelling are O(1) and any number of tasks can share a tick.
+ * Tasks far in the future sit in coarser levels and are cascaded down as the wheel reaches them.
+ * <p>
+ * This is not thread-safe, and is expected to only be used on the main thread.
+ */
+public final class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    /**
+     * Number of ticks the wheel can span before a task goes into the overflow bucket.
+     */
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final Bucket[][] wheel = new Bucket[LEVELS][SLOTS];
+    private Bucket overflow = new Bucket();
+    private Bucket spare = new Bucket();
+
+    private long tick = 0;
+    private int size = 0;
+
+    /**
+     * A scheduled action. Returned by {@link TimingWheel#schedule} so it can be cancelled.
+     */
+    public final class Task {
+        private final long deadline;
+        private final Runnable action;
+        private Bucket bucket;
+        private Task prev, next;
+
+        private Task(long deadline, Runnable action) {
+            this.deadline = deadline;
+            this.action = action;
+        }
+
+        /**
+         * @return the tick this task runs on
+         */
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * @return true if this task has not yet run or been cancelled
+         */
+        public boolean isPending() {
+            return bucket != null;
+        }
+
+        /**
+         * Cancels this task.
+         * @return true if the task was pending and is now cancelled, false if it already ran or was cancelled
+         */
+        public boolean cancel() {
+            if (bucket == null) return false;
+            bucket.remove(this);
+            size--;
+            return true;
+        }
+    }
+
+    private final class Bucket {
+        private Task head, tail;
+
+        void add(Task t) {
+            t.bucket = this;
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) head = t;
+            else tail.next = t;
+            tail = t;
+        }
+
+        void remove(Task t) {
+            if (t.prev == null) head = t.next;
+            else t.prev.next = t.next;
+            if (t.next == null) tail = t.prev;
+            else t.next.prev = t.prev;
+
+            t.prev = t.next = null;
+            t.bucket = null;
+        }
+
+        Task poll() {
+            Task t = head;
+            if (t != null) remove(t);
+            return t;
+        }
+
+        boolean isEmpty() {
+            return head == null;
+        }
+    }
+
+    public TimingWheel() {
+        for (Bucket[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) level[i] = new Bucket();
+        }
+    }
+
+    /**
+     * @return the next tick the wheel will process
+     */
+    public long tick() {
+        return tick;
+    }
+
+    /**
+     * @return number of pending tasks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules an action to run some number of ticks from now.
+     * @param delay Number of ticks to wait. Nonpositive delays run on the next processed tick.
+     * @param action Action to run
+     * @return the task, which can be cancelled
+     */
+    public Task schedule(long delay, Runnable action) {
+        return scheduleAt(tick + Math.max(0, delay), action);
+    }
+
+    /**
+     * Schedules an action to run on a specific tick.
+     * @param deadline Tick to run the action on. Ticks already processed run on the next processed tick.
+     * @param action Action to run
+     * @return the task, which can be cancelled
+     */
+    public Task scheduleAt(long deadline, Runnable action) {
+        Objects.requireNonNull(action);
+        Task t = new Task(Math.max(deadline, tick), action);
+        place(t);
+        size++;
+        return t;
+    }
+
+    private void place(Task t) {
+        long delta = t.deadline - tick;
+        if (delta >= SPAN) {
+            overflow.add(t);
+            return;
+        }
+
+        int level = 0;
+        while (delta >= (1L << (SLOT_BITS * (level + 1)))) level++;
+        int slot = (int) (t.deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+        wheel[level][slot].add(t);
+    }
+
+    /**
+     * Swaps the bucket out of its slot so tasks placed during the drain land in a fresh bucket.
+     */
+    private Bucket detach(int level, int slot) {
+        Bucket b = wheel[level][slot];
+        wheel[level][slot] = spare;
+        spare = b;
+        return b;
+    }
+
+    private void cascade(Bucket b) {
+        Task t;
+        while ((t = b.poll()) != null) place(t);
+    }
+
+    /**
+     * Processes ticks until the wheel reaches the specified tick, running every task that comes due.
+     * @param target Tick to process up to (inclusive)
+     */
+    public void advanceTo(long target) {
+        while (tick <= target) advance();
+    }
+
+    /**
+     * Processes the next tick, running every task that comes due on it.
+     */
+    public void advance() {
+        long t = tick;
+
+        // pull coarser levels down when the finer level wraps around
+        for (int level = 1; level < LEVELS; level++) {
+            if ((t & ((1L << (SLOT_BITS * level)) - 1)) != 0) break;
+            cascade(detach(level, (int) (t >>> (SLOT_BITS * level)) & SLOT_MASK));
+        }
+        if ((t & (SPAN - 1)) == 0 && !overflow.isEmpty()) {
+            Bucket b = overflow;
+            overflow = new Bucket();
+            cascade(b);
+        }
+
+        Bucket due = detach(0, (int) t & SLOT_MASK);
+        tick = t + 1;
+
+        Task task;
+        while ((task = due.poll()) != null) {
+            size--;
+            task.action.run();
+        }
+    }
+
+    /**
+     * Cancels every pending task and resets the wheel to tick 0.
+     */
+    public void clear() {
+        for (Bucket[] level : wheel) {
+            for (Bucket b : level) {
+                while (b.poll() != null);
+            }
+        }
+        while (overflow.poll() != null);
+        size = 0;
+        tick = 0;
+    }
+}
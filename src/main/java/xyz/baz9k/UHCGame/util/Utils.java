@@ -14,6 +14,11 @@ import xyz.baz9k.UHCGame.UHCGamePlugin;
 import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
 
 public final class Utils {
+    // translation keys, checked when the plugin is enabled
+    private static final Key HOUR   = Key.of("time.hour"),
+                             MINUTE = Key.of("time.minute"),
+                             SECOND = Key.of("time.second");
+
     private Utils() {}
 
     /**
@@ -108,9 +113,9 @@ public final class Utils {
         if (s == 0) return Component.empty();
 
         TranslatableComponent[] units = {
-            new Key("time.hour").trans(),
-            new Key("time.minute").trans(),
-            new Key("time.second").trans(),
+            HOUR.trans(),
+            MINUTE.trans(),
+            SECOND.trans(),
         };
 
         List<Long> segs = new ArrayList<>();
@@ -143,6 +148,15 @@ public final class Utils {
         return getWordTime(d.toSeconds());
     }
 
+    /**
+     * Get the number of whole server ticks (at 20 ticks per second) that fit in a {@link Duration}.
+     * @param d Duration
+     * @return the number of ticks
+     */
+    public static long toTicks(Duration d) {
+        return d.toMillis() / 50;
+    }
+
     /**
      * Take the modulo where 0 <= x < y.
      * <p>
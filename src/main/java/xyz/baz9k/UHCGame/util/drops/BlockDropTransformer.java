@@ -1,52 +1,35 @@
 package xyz.baz9k.UHCGame.util.drops;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.bukkit.Material;
-import org.bukkit.Tag;
-import org.bukkit.entity.Item;
-import org.bukkit.inventory.ItemStack;
 
 /**
- * Set rules to change items dropped from a specified block (or tag).
+ * Set rules to change items dropped from specified blocks, or from mobs (see the replace rules in drops.yml).
+ * <p>
+ * Rules do nothing on their own. The active rules are compiled together into a {@link DropTable}.
  */
 public final class BlockDropTransformer {
-    private Set<Mapping> transforms = new HashSet<>();
+    final List<Mapping> transforms = new ArrayList<>();
 
-    private record Mapping(Set<Material> blockMats, Set<Material> fromMats, Material toMat) {}
-    
-    private BlockDropTransformer add(Set<Material> b, Set<Material> f, Material t) {
-        transforms.add(new Mapping(b, f, t));
-        return this;
-    }
-    public BlockDropTransformer add(Material blockMat,      Material fromMat,      Material toMat) { return add(Set.of(blockMat),     Set.of(fromMat),     toMat); }
-    public BlockDropTransformer add(Material blockMat,      Tag<Material> fromMat, Material toMat) { return add(Set.of(blockMat),     fromMat.getValues(), toMat); }
-    public BlockDropTransformer add(Tag<Material> blockMat, Material fromMat,      Material toMat) { return add(blockMat.getValues(), Set.of(fromMat),     toMat); }
-    public BlockDropTransformer add(Tag<Material> blockMat, Tag<Material> fromMat, Material toMat) { return add(blockMat.getValues(), fromMat.getValues(), toMat); }
-    
     /**
-     * Identify which transformer rule to use based on the block and item stack, 
-     * then convert the stack to the "to" material.
-     * @param b block material
-     * @param s item stack
+     * @param blockMats Blocks this rule applies to, or null if this rule applies to mob drops
+     * @param fromMats Items this rule converts
+     * @param toMat Item to convert to
      */
-    public void transform(Material b, ItemStack s) {
-        for (Mapping m : transforms) {
-            if (m.blockMats.contains(b) && m.fromMats().contains(s.getType())) {
-                s.setType(m.toMat());
-                break;
-            }
-        }
-    }
+    record Mapping(Set<Material> blockMats, Set<Material> fromMats, Material toMat) {}
 
     /**
-     * Identify which transformer rule to use based on the block and item, 
-     * then convert the item's stack to the "to" material.
-     * @param b block material
-     * @param it item drop
+     * Adds a rule which converts items.
+     * @param b Blocks this rule applies to, or null if this rule applies to mob drops
+     * @param f Items to convert
+     * @param t Item to convert to
+     * @return this transformer
      */
-    public void transform(Material b, Item it) {
-        transform(b, it.getItemStack());
+    BlockDropTransformer add(Set<Material> b, Set<Material> f, Material t) {
+        transforms.add(new Mapping(b, f, t));
+        return this;
     }
-}
\ No newline at end of file
+}
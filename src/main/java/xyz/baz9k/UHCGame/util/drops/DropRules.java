@@ -0,0 +1,302 @@
+package xyz.baz9k.UHCGame.util.drops;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Tag;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.entity.Item;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import xyz.baz9k.UHCGame.util.Ench;
+
+import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
+
+/**
+ * The drop rules of drops.yml, compiled into lookup tables.
+ * <p>
+ * Rules whose conditions are off are left out when compiling, so the rules that remain are applied without checking config.
+ * Item conversions are merged into a {@link DropTable}, and the remaining rules (extra drops, removed drops, xp)
+ * are grouped into an array per block, indexed by {@link Material#ordinal}.
+ * Chances are rolled on a shared {@link ThreadLocalRandom}, so applying rules only allocates for what it spawns.
+ */
+public final class DropRules {
+    // translation keys, checked when the plugin is enabled
+    private static final Key INVALID_RULE = Key.of("err.drops.invalid_rule");
+
+    private static final int N_MATERIALS = Material.values().length;
+
+    /**
+     * Rules which do nothing.
+     */
+    public static final DropRules EMPTY = new DropRules(DropTable.EMPTY, new Extra[N_MATERIALS][], new Extra[N_MATERIALS][]);
+
+    private final DropTable table;
+    /**
+     * Rules applied when a block is broken, by block ordinal (null if there are none)
+     */
+    private final Extra[][] onBreak;
+    /**
+     * Rules applied when leaves decay, by block ordinal (null if there are none)
+     */
+    private final Extra[][] onDecay;
+
+    /**
+     * A rule which can remove or add drops.
+     * @param removes Items to remove from the drops
+     * @param drop Item to add, or null
+     * @param amount Number of the item to add
+     * @param xp Experience to drop
+     * @param chance Chance of dropping the item and xp, by Fortune level
+     * @param deniedTools Tools which prevent this rule from applying
+     */
+    private record Extra(Set<Material> removes, @Nullable Material drop, int amount, int xp, double[] chance, Set<Material> deniedTools) {
+        void apply(@Nullable List<Item> items, @Nullable ItemStack tool, Block b) {
+            if (tool != null && deniedTools.contains(tool.getType())) return;
+
+            if (items != null && !removes.isEmpty()) {
+                for (int i = items.size() - 1; i >= 0; i--) {
+                    if (removes.contains(items.get(i).getItemStack().getType())) items.remove(i);
+                }
+            }
+
+            int fortune = tool == null ? 0 : tool.getEnchantmentLevel(Ench.FORTUNE);
+            double c = chance[Math.min(fortune, chance.length - 1)];
+            if (c < 1 && ThreadLocalRandom.current().nextDouble() >= c) return;
+
+            World w = b.getWorld();
+            Location loc = b.getLocation();
+            if (drop != null) {
+                Item it = w.dropItem(loc, new ItemStack(drop, amount));
+                if (items != null) items.add(it);
+            }
+            if (xp > 0) {
+                w.spawn(loc, ExperienceOrb.class, o -> o.setExperience(xp));
+            }
+        }
+    }
+
+    private DropRules(DropTable table, Extra[][] onBreak, Extra[][] onDecay) {
+        this.table = table;
+        this.onBreak = onBreak;
+        this.onDecay = onDecay;
+    }
+
+    /**
+     * Compiles the rules in drops.yml.
+     * @param yml the rules file
+     * @param condition Tests if a config option (from a rule's "when") is on
+     * @param multipliers Values which can be used as a rule's "multiplier"
+     * @return the compiled rules
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public static DropRules compile(ConfigurationSection yml, Predicate<String> condition, Map<String, Double> multipliers) {
+        List<BlockDropTransformer> transforms = new ArrayList<>();
+        List<List<Extra>> onBreak = new ArrayList<>(),
+                          onDecay = new ArrayList<>();
+        for (int i = 0; i < N_MATERIALS; i++) {
+            onBreak.add(null);
+            onDecay.add(null);
+        }
+
+        for (Map<?, ?> rule : yml.getMapList("rules")) {
+            String name = String.valueOf(rule.get("name"));
+            if (!conditionsMet(name, rule.get("when"), condition)) continue;
+
+            boolean mobs = Boolean.TRUE.equals(rule.get("mobs"));
+            Set<Material> blocks = mobs ? null : blocks(name, rule.get("blocks"));
+
+            // conversions
+            if (rule.get("replace") instanceof Map<?, ?> replace) {
+                var bdt = new BlockDropTransformer();
+                for (var e : replace.entrySet()) {
+                    bdt.add(blocks, Set.of(material(name, "replace", e.getKey())), material(name, "replace", e.getValue()));
+                }
+                transforms.add(bdt);
+            }
+            if (mobs) continue;
+
+            // extra drops
+            Extra extra = extra(name, rule, condition, multipliers);
+            if (extra == null) continue;
+
+            boolean decay = Boolean.TRUE.equals(rule.get("decay"));
+            for (Material b : blocks) {
+                add(onBreak, b, extra);
+                if (decay) add(onDecay, b, extra);
+            }
+        }
+
+        return new DropRules(DropTable.compile(transforms), toArrays(onBreak), toArrays(onDecay));
+    }
+
+    /**
+     * @return the rule's non-conversion parts, or null if it has none that can happen
+     */
+    private static @Nullable Extra extra(String name, Map<?, ?> rule, Predicate<String> condition, Map<String, Double> multipliers) {
+        Set<Material> removes = materials(name, "remove", rule.get("remove"));
+        Material drop = rule.containsKey("drop") ? material(name, "drop", rule.get("drop")) : null;
+        int amount = rule.get("amount") instanceof Number n ? n.intValue() : 1;
+        int xp = rule.get("xp") instanceof Number n ? n.intValue() : 0;
+
+        double[] chance;
+        Object c = rule.get("chance");
+        if (c == null) {
+            chance = new double[] { 1 };
+        } else if (c instanceof Number n) {
+            chance = new double[] { n.doubleValue() };
+        } else if (c instanceof List<?> l && !l.isEmpty() && l.stream().allMatch(Number.class::isInstance)) {
+            chance = l.stream().mapToDouble(o -> ((Number) o).doubleValue()).toArray();
+        } else {
+            throw invalidRule(name, "chance");
+        }
+
+        Object m = rule.get("multiplier");
+        double mult;
+        if (m == null) mult = 1;
+        else if (m instanceof Number n) mult = n.doubleValue();
+        else if (m instanceof String s && multipliers.containsKey(s)) mult = multipliers.get(s);
+        else throw invalidRule(name, "multiplier");
+        for (int i = 0; i < chance.length; i++) chance[i] *= mult;
+
+        Set<Material> deniedTools;
+        Object dt = rule.get("deny_tools");
+        if (dt instanceof Map<?, ?> dtMap) {
+            boolean allowed = dtMap.get("unless") instanceof String unless && condition.test(unless);
+            deniedTools = allowed ? Set.of() : materials(name, "deny_tools", dtMap.get("tools"));
+        } else {
+            deniedTools = materials(name, "deny_tools", dt);
+        }
+
+        boolean doesNothing = Arrays.stream(chance).allMatch(x -> x <= 0) || (drop == null && xp <= 0);
+        if (removes.isEmpty() && doesNothing) return null;
+
+        return new Extra(removes, doesNothing ? null : drop, amount, doesNothing ? 0 : xp, chance, deniedTools);
+    }
+
+    private static void add(List<List<Extra>> rows, Material b, Extra e) {
+        List<Extra> row = rows.get(b.ordinal());
+        if (row == null) rows.set(b.ordinal(), row = new ArrayList<>());
+        row.add(e);
+    }
+
+    private static Extra[][] toArrays(List<List<Extra>> rows) {
+        Extra[][] arr = new Extra[N_MATERIALS][];
+        for (int i = 0; i < N_MATERIALS; i++) {
+            List<Extra> row = rows.get(i);
+            if (row != null) arr[i] = row.toArray(Extra[]::new);
+        }
+        return arr;
+    }
+
+    private static boolean conditionsMet(String name, Object when, Predicate<String> condition) {
+        if (when == null) return true;
+        if (!(when instanceof List<?> l)) throw invalidRule(name, "when");
+
+        for (Object o : l) {
+            String path = String.valueOf(o);
+            boolean negate = path.startsWith("!");
+            if (negate) path = path.substring(1);
+
+            if (condition.test(path) == negate) return false;
+        }
+        return true;
+    }
+
+    private static Set<Material> blocks(String name, Object o) {
+        if (!(o instanceof List<?> l)) throw invalidRule(name, "blocks");
+
+        Set<Material> blocks = new HashSet<>();
+        for (Object e : l) {
+            String s = String.valueOf(e);
+            if (s.startsWith("#")) {
+                NamespacedKey key = NamespacedKey.fromString(s.substring(1));
+                Tag<Material> tag = key == null ? null : Bukkit.getTag(Tag.REGISTRY_BLOCKS, key, Material.class);
+                if (tag == null) throw invalidRule(name, "blocks");
+                blocks.addAll(tag.getValues());
+            } else {
+                blocks.add(material(name, "blocks", s));
+            }
+        }
+        return blocks;
+    }
+
+    private static Set<Material> materials(String name, String field, Object o) {
+        if (o == null) return Set.of();
+        if (!(o instanceof List<?> l)) throw invalidRule(name, field);
+
+        Set<Material> mats = EnumSet.noneOf(Material.class);
+        for (Object e : l) mats.add(material(name, field, e));
+        return mats;
+    }
+
+    private static Material material(String name, String field, Object o) {
+        Material m = Material.matchMaterial(String.valueOf(o));
+        if (m == null) throw invalidRule(name, field);
+        return m;
+    }
+
+    private static IllegalArgumentException invalidRule(String name, String field) {
+        return INVALID_RULE.transErr(IllegalArgumentException.class, name, field);
+    }
+
+    /**
+     * Applies the rules to the drops of a broken block.
+     * @param block Material of the block that was broken
+     * @param items The drops (this list is modified)
+     * @param tool Tool used to break the block, or null
+     * @param b The block
+     */
+    public void applyBreak(Material block, List<Item> items, @Nullable ItemStack tool, Block b) {
+        if (table.hasRules(block)) {
+            for (int i = 0; i < items.size(); i++) {
+                table.transform(block, items.get(i).getItemStack());
+            }
+        }
+
+        Extra[] row = onBreak[block.ordinal()];
+        if (row == null) return;
+        for (Extra e : row) e.apply(items, tool, b);
+    }
+
+    /**
+     * Applies the rules to a decaying leaf block.
+     * @param b The block
+     */
+    public void applyDecay(Block b) {
+        Extra[] row = onDecay[b.getType().ordinal()];
+        if (row == null) return;
+        for (Extra e : row) e.apply(null, null, b);
+    }
+
+    /**
+     * Applies the rules to an item dropped by a mob.
+     * @param s The item
+     */
+    public void applyMobDrop(ItemStack s) {
+        table.transformMobDrop(s);
+    }
+
+    /**
+     * @param block Material of block
+     * @return if any rule applies when this block is broken
+     */
+    public boolean hasBreakRules(Material block) {
+        return table.hasRules(block) || onBreak[block.ordinal()] != null;
+    }
+}
@@ -0,0 +1,98 @@
+package xyz.baz9k.UHCGame.util.drops;
+
+import java.util.Collection;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * The rules of some {@link BlockDropTransformer}s, merged into lookup tables indexed by {@link Material#ordinal}.
+ * <p>
+ * Each block with a rule has a row, mapping each item's ordinal to the material it converts to (or null).
+ * Converting a drop is one lookup into the block's row, no matter how many rules there are.
+ */
+public final class DropTable {
+    private static final int N_MATERIALS = Material.values().length;
+
+    /**
+     * An empty table, which converts nothing.
+     */
+    public static final DropTable EMPTY = new DropTable();
+
+    /**
+     * The row of each block, or null if the block has no rules
+     */
+    private final Material[][] blockRows = new Material[N_MATERIALS][];
+    /**
+     * The row for mob drops, or null if there are no mob drop rules
+     */
+    private Material[] mobRow;
+
+    private DropTable() { }
+
+    /**
+     * Merges the rules of the transformers into a table.
+     * If more than one rule applies to a drop, the earliest rule (by transformer, then by order added) is used.
+     * @param transformers the active transformers
+     * @return the table
+     */
+    public static DropTable compile(Collection<BlockDropTransformer> transformers) {
+        DropTable t = new DropTable();
+
+        for (BlockDropTransformer bdt : transformers) {
+            for (BlockDropTransformer.Mapping m : bdt.transforms) {
+                if (m.blockMats() == null) {
+                    if (t.mobRow == null) t.mobRow = new Material[N_MATERIALS];
+                    fill(t.mobRow, m);
+                    continue;
+                }
+
+                for (Material b : m.blockMats()) {
+                    Material[] row = t.blockRows[b.ordinal()];
+                    if (row == null) row = t.blockRows[b.ordinal()] = new Material[N_MATERIALS];
+                    fill(row, m);
+                }
+            }
+        }
+        return t;
+    }
+
+    private static void fill(Material[] row, BlockDropTransformer.Mapping m) {
+        for (Material f : m.fromMats()) {
+            // earlier rules take priority
+            if (row[f.ordinal()] == null) row[f.ordinal()] = m.toMat();
+        }
+    }
+
+    /**
+     * Converts an item stack dropped by a block, if a rule applies to it.
+     * @param b block material
+     * @param s item stack
+     */
+    public void transform(Material b, ItemStack s) {
+        Material[] row = blockRows[b.ordinal()];
+        if (row == null) return;
+
+        Material to = row[s.getType().ordinal()];
+        if (to != null) s.setType(to);
+    }
+
+    /**
+     * Converts an item stack dropped by a mob, if a rule applies to it.
+     * @param s item stack
+     */
+    public void transformMobDrop(ItemStack s) {
+        if (mobRow == null) return;
+
+        Material to = mobRow[s.getType().ordinal()];
+        if (to != null) s.setType(to);
+    }
+
+    /**
+     * @param b block material
+     * @return if any rule applies to drops from this block
+     */
+    public boolean hasRules(Material b) {
+        return blockRows[b.ordinal()] != null;
+    }
+}
@@ -21,6 +21,11 @@ import static xyz.baz9k.UHCGame.util.ComponentUtils.*;
  * Class implementing {@link ItemProperties} that allows for the ItemStack to update based on the value of a given property object.
  */
 public class DynItemProperties<T> implements ItemProperties {
+    // translation keys, checked when the plugin is enabled
+    private static final Key BOOL_OFF    = Key.of("menu.bool_valued.off"),
+                             BOOL_ON     = Key.of("menu.bool_valued.on"),
+                             BOOL_STATUS = Key.of("menu.bool_valued.status");
+
     private static final Style DEFAULT_NAME_STYLE = TransItemStack.DEFAULT_NAME_STYLE;
     private static final Style DEFAULT_DESC_STYLE = TransItemStack.DEFAULT_DESC_STYLE;
 
@@ -156,11 +161,11 @@ public class DynItemProperties<T> implements ItemProperties {
                 // keeps the description untouched, adds Status: ACTIVE/INACTIVE below it
                 Component status;
                 if (active) {
-                    status = new Key("menu.bool_valued.on").trans().style(noDeco(NamedTextColor.GREEN));
+                    status = BOOL_ON.trans().style(noDeco(NamedTextColor.GREEN));
                 } else {
-                    status = new Key("menu.bool_valued.off").trans().style(noDeco(NamedTextColor.RED));
+                    status = BOOL_OFF.trans().style(noDeco(NamedTextColor.RED));
                 }
-                return new ExtraLore(new Key("menu.bool_valued.status"), status);
+                return new ExtraLore(BOOL_STATUS, status);
             };
         }
     }